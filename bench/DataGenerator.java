@@ -0,0 +1,138 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Writer of the synthetic data sets in the files the application reads from its root folder: the locations, the
+ * saved buses, and the tickets, either as a journal, as a snapshot, or as the ticket files of the older versions.
+ * <p>
+ * Usage: {@code java -cp jmh/target/benchmarks.jar DataGenerator <folder> <ticket count> [journal|snapshot|files] [seed]},
+ * then run the application with {@code -Dbusticketing.root=<folder>}.
+ */
+public class DataGenerator {
+    /**
+     * Layout of the tickets in the root folder.
+     */
+    public enum Layout {
+        /**
+         * Journal of the sales, replayed at the start.
+         */
+        JOURNAL,
+        /**
+         * Snapshot of the tickets, mapped at the start.
+         */
+        SNAPSHOT,
+        /**
+         * Ticket files of the older versions, migrated into the journal at the start.
+         */
+        FILES
+    }
+
+    /**
+     * Number of the locations of a generated data set.
+     */
+    public static final int LOCATION_COUNT = 200;
+    /**
+     * Time of the first journey of a generated data set, 2027-01-01 00:00 UTC.
+     */
+    public static final long START_MILLIS = 1798761600000L;
+    private static final int JOURNAL_BATCH_SIZE = 10000;
+
+    /**
+     * The entry point of the generator.
+     *
+     * @param args Folder, ticket count, optional layout and optional seed.
+     * @throws IOException If the files could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: DataGenerator <folder> <ticket count> [journal|snapshot|files] [seed]");
+            System.exit(2);
+        }
+
+        Path folder = Paths.get(args[0]);
+        int count = Integer.parseInt(args[1]);
+        Layout layout = args.length > 2 ? Layout.valueOf(args[2].toUpperCase()) : Layout.JOURNAL;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : count;
+
+        long start = System.nanoTime();
+        SyntheticData data = new SyntheticData(seed, START_MILLIS);
+        ArrayList<Location> locations = data.locations(LOCATION_COUNT);
+        ArrayList<Ticket> tickets = data.tickets(count, locations);
+        long generated = System.nanoTime();
+        write(folder, locations, tickets, layout);
+
+        System.out.printf("%d tickets generated in %d ms, written as %s to %s in %d ms%n",
+                count, (generated - start) / 1000000, layout.name().toLowerCase(), folder.toAbsolutePath(), (System.nanoTime() - generated) / 1000000);
+    }
+
+    /**
+     * Writes a data set to a root folder.
+     *
+     * @param folder    Root folder, created if it does not exist.
+     * @param locations Locations of the data set.
+     * @param tickets   Tickets of the data set. Their buses are saved as well.
+     * @param layout    Layout of the tickets.
+     * @throws IOException If the files could not be written.
+     */
+    public static void write(Path folder, List<Location> locations, List<Ticket> tickets, Layout layout) throws IOException {
+        Files.createDirectories(folder);
+        writeLocations(folder, locations);
+        writeBuses(folder, tickets);
+
+        switch (layout) {
+            case JOURNAL:
+                TicketJournal journal = new TicketJournal(folder.resolve("tickets.journal"));
+                for (int i = 0; i < tickets.size(); i += JOURNAL_BATCH_SIZE) {
+                    journal.appendSales(tickets.subList(i, Math.min(tickets.size(), i + JOURNAL_BATCH_SIZE)));
+                }
+                break;
+            case SNAPSHOT:
+                Snapshot.write(tickets, folder.resolve("tickets.snapshot"));
+                break;
+            case FILES:
+                for (Ticket ticket : tickets) {
+                    write(folder.resolve("ticket-" + ticket.getId() + ".ticket"), ticket.toJson().toString());
+                }
+                break;
+        }
+    }
+
+    /**
+     * Writes the locations as the provider lists its terminals, which the application saves as locations.json.
+     *
+     * @param folder    Root folder.
+     * @param locations Locations to write.
+     * @throws IOException If the file could not be written.
+     */
+    public static void writeLocations(Path folder, List<Location> locations) throws IOException {
+        JSONArray rows = new JSONArray();
+        for (Location location : locations) {
+            rows.put(new JSONObject().put("BRANCHNAME", location.getName()).put("BRANCHCODE", location.getHtmlValue()));
+        }
+
+        write(folder.resolve("locations.json"), new JSONObject().put("rc1", rows).toString());
+    }
+
+    private static void writeBuses(Path folder, List<Ticket> tickets) throws IOException {
+        IdentityHashMap<Bus, Boolean> written = new IdentityHashMap<>();
+        for (Ticket ticket : tickets) {
+            Bus bus = ticket.getBus();
+            if (written.put(bus, Boolean.TRUE) != null) continue;
+
+            write(folder.resolve("bus-" + bus.getCode() + ".bus"), bus.toJson().toString());
+        }
+    }
+
+    private static void write(Path path, String text) throws IOException {
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+    }
+}
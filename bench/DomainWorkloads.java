@@ -0,0 +1,181 @@
+import busticketing.jmh.Workload;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+/**
+ * Workloads of the benchmarks of the hot paths of the domain, on synthetic data sets, run by the JMH benchmarks in
+ * busticketing.jmh.
+ * <p>
+ * Usage: {@code java -jar jmh/target/benchmarks.jar [JMH options]}, like {@code -p size=1000,10000} to run on some of
+ * the sizes, {@code -prof gc} to report the bytes allocated per operation, and {@code -rf csv -rff <file>} to write
+ * the results to compare runs with.
+ * <p>
+ * The files written by the workloads go to a temporary root folder, never to the data of the application.
+ */
+public class DomainWorkloads {
+    private static final int PICK_COUNT = 1 << 16;
+
+    private abstract static class DomainWorkload implements Workload {
+        private final HashMap<String, Operation> operations = new HashMap<>();
+        private Path root;
+
+        @Override
+        public void setUp(int size) throws Exception {
+            // Before anything touches Helpers, whose root folder is read once.
+            root = Files.createTempDirectory("busticketing-bench");
+            System.setProperty("busticketing.root", root.toString());
+            prepare(size);
+        }
+
+        @Override
+        public Operation getOperation(String name) {
+            Operation operation = operations.get(name);
+            if (operation == null) throw new IllegalArgumentException("Unknown operation: " + name);
+            return operation;
+        }
+
+        @Override
+        public void tearDown() {
+            Helpers.shutdown();
+            Helpers.tickets.clear();
+            Helpers.passengers.clear();
+            deleteRecursively(root.toFile());
+        }
+
+        /**
+         * Prepares the data set, adding the operations on it.
+         *
+         * @param size Size of the data set.
+         * @throws Exception If the data set could not be prepared.
+         */
+        abstract void prepare(int size) throws Exception;
+
+        void add(String name, Operation operation) {
+            operations.put(name, operation);
+        }
+    }
+
+    /**
+     * Lookups through the store and the registries, on the given number of the tickets.
+     */
+    public static class Lookups extends DomainWorkload {
+        @Override
+        void prepare(int size) {
+            SyntheticData data = new SyntheticData(size, DataGenerator.START_MILLIS);
+            ArrayList<Ticket> tickets = data.tickets(size, data.locations(DataGenerator.LOCATION_COUNT));
+            Helpers.tickets.clear();
+            Helpers.passengers.clear();
+            Helpers.addTickets(tickets);
+
+            IdentityHashMap<Bus, Boolean> distinctBuses = new IdentityHashMap<>();
+            ArrayList<Baggage> baggages = new ArrayList<>();
+            for (Ticket ticket : tickets) {
+                distinctBuses.put(ticket.getBus(), Boolean.TRUE);
+                if (ticket.getBaggage() != null) baggages.add(ticket.getBaggage());
+            }
+            Bus[] buses = distinctBuses.keySet().toArray(new Bus[0]);
+
+            // Random picks, as the user interface touches the data, rather than sequential ones favouring the caches.
+            int[] busPicks = picks(buses.length, size), ticketPicks = picks(size, size + 1), baggagePicks = picks(baggages.size(), size + 2);
+            add("Bus.getRemainingSeatNumber", i -> buses[busPicks[i & (PICK_COUNT - 1)]].getRemainingSeatNumber());
+            add("Ticket.getOwner", i -> tickets.get(ticketPicks[i & (PICK_COUNT - 1)]).getOwner());
+            add("Baggage.getOwner", i -> baggages.get(baggagePicks[i & (PICK_COUNT - 1)]).getOwner());
+            add("TicketStore.getByJourney", i -> Helpers.tickets.getByJourney(buses[busPicks[i & (PICK_COUNT - 1)]]));
+        }
+    }
+
+    /**
+     * Serialization, loading, exporting, validation and the date codec, on a sample of the given number of the
+     * tickets.
+     */
+    public static class Samples extends DomainWorkload {
+        @Override
+        void prepare(int size) throws Exception {
+            SyntheticData data = new SyntheticData(size, DataGenerator.START_MILLIS);
+            ArrayList<Ticket> tickets = data.tickets(size, data.locations(DataGenerator.LOCATION_COUNT));
+            Helpers.addTickets(tickets);
+
+            ArrayList<Bus> buses = new ArrayList<>();
+            for (Ticket ticket : tickets) {
+                if (buses.isEmpty() || buses.get(buses.size() - 1) != ticket.getBus()) buses.add(ticket.getBus());
+            }
+
+            add("Ticket.toJson", i -> tickets.get(Math.floorMod(i, size)).toJson().toString());
+            add("Bus.toJson", i -> buses.get(Math.floorMod(i, buses.size())).toJson().toString());
+
+            // Ticket files, as the older versions saved them and the migration reads them.
+            for (Ticket ticket : tickets) {
+                Files.write(Paths.get(Helpers.ROOT_FOLDER_PATH, "ticket-" + ticket.getId() + ".ticket"), ticket.toJson().toString().getBytes(StandardCharsets.UTF_8));
+            }
+            add("Ticket.loadFromFile", i -> Ticket.loadFromFile(tickets.get(Math.floorMod(i, size)).getId()));
+
+            Date[] dates = new Date[size];
+            String[] isoDates = new String[size];
+            for (int i = 0; i < size; i++) {
+                dates[i] = tickets.get(i).getBus().getMovementDate();
+                isoDates[i] = DateCodec.formatIso(dates[i]);
+            }
+            add("DateCodec.formatIso", i -> DateCodec.formatIso(dates[Math.floorMod(i, size)]));
+            add("DateCodec.parseIso", i -> DateCodec.parseIso(isoDates[Math.floorMod(i, size)]));
+            add("DateCodec.formatDateMinute", i -> DateCodec.formatDateMinute(dates[Math.floorMod(i, size)]));
+
+            // Every operation exports the whole sample, over the file of the previous one.
+            TicketExporter exporter = new TicketExporter(tickets);
+            for (String name : new String[]{"export.json", "export.json.gz"}) {
+                Path path = Paths.get(Helpers.ROOT_FOLDER_PATH, name);
+                add("TicketExporter.write " + name, i -> {
+                    exporter.write(path);
+                    return path;
+                });
+            }
+
+            long[] identifiers = new long[size];
+            Random random = new Random(size);
+            for (int i = 0; i < size; i++) {
+                // A tenth of the entries are mistyped, as the validation sees them.
+                identifiers[i] = random.nextInt(10) == 0 ? data.identifier() + 1 + random.nextInt(9) : data.identifier();
+            }
+            add("Helpers.getDigits", i -> Helpers.getDigits(identifiers[Math.floorMod(i, size)]));
+            add("PurchaseDialog.isIdentifierValid", i -> PurchaseDialog.isIdentifierValid(identifiers[Math.floorMod(i, size)]));
+        }
+    }
+
+    /**
+     * Parsing of a journey list response of the provider, of the given number of the journeys.
+     */
+    public static class Parsing extends DomainWorkload {
+        @Override
+        void prepare(int rows) {
+            SyntheticData data = new SyntheticData(rows, DataGenerator.START_MILLIS);
+            byte[] response = data.journeyResponse(rows, new Date(DataGenerator.START_MILLIS));
+            Location from = Location.intern(new Location("İSTANBUL (OTOGAR)", "100")), to = Location.intern(new Location("ANKARA (OTOGAR)", "101"));
+            add("JourneyResponseParser.parse", i -> {
+                ArrayList<Bus> parsed = new ArrayList<>(rows);
+                JourneyResponseParser.parse(response, from, to, parsed::add);
+                return parsed;
+            });
+        }
+    }
+
+    private static int[] picks(int bound, long seed) {
+        Random random = new Random(seed);
+        int[] picks = new int[PICK_COUNT];
+        for (int i = 0; i < PICK_COUNT; i++) picks[i] = random.nextInt(bound);
+        return picks;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) for (File child : children) deleteRecursively(child);
+        file.delete();
+    }
+}
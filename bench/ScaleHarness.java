@@ -0,0 +1,465 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Harness measuring the application at the scale of the generated data sets: the startup load, the searches, the
+ * purchases, the cancellations, the import and the export, then the requests per second of the booking server, which
+ * is driven by concurrent purchases, searches and cancellations over HTTP, and the dispatch metrics of the events
+ * published meanwhile. The concurrent sales of the same seats are stress tested by TicketStoreConcurrencyTest instead.
+ * <p>
+ * Every scale runs in a JVM of its own, so that the startup is measured cold and the scales do not share state: the
+ * harness generates the data set of a scale into a temporary root folder, then runs the measurements against it, with
+ * a stand-in provider serving generated journey lists. The results are printed as a table, one column per scale.
+ * <p>
+ * Usage: {@code java -cp jmh/target/benchmarks.jar ScaleHarness}, with the system properties:
+ * <ul>
+ * <li>busticketing.scale.sizes: comma separated ticket counts, 1000,10000,100000,1000000 by default.</li>
+ * <li>busticketing.scale.layout: journal, snapshot or files, the layout of the saved tickets, journal by default.</li>
+ * <li>busticketing.scale.heap: maximum heap of the JVMs of the scales, 4g by default.</li>
+ * <li>busticketing.scale.operations: number of the searches, purchases and cancellations, 1000 by default.</li>
+ * <li>busticketing.scale.server.clients: number of the requests in flight to the booking server, 16 by default.</li>
+ * <li>busticketing.scale.output: path of a CSV file to write the results to.</li>
+ * <li>busticketing.scale.keep: true to keep the generated root folders.</li>
+ * </ul>
+ */
+public class ScaleHarness {
+    private static final String RESULT = "RESULT ";
+    private static final long YEAR_MILLIS = 365L * 24 * 60 * 60 * 1000;
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final String[] PROPAGATED_PROPERTIES = {"busticketing.scale.operations", "busticketing.scale.server.clients"};
+
+    /**
+     * The entry point of the harness.
+     *
+     * @param args Empty to run all the scales, or --run with a root folder and a ticket count to measure a scale.
+     * @throws Exception If a scale could not be run.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--run")) {
+            new Scale(Paths.get(args[1]), Integer.parseInt(args[2])).run();
+            System.exit(0);
+        }
+
+        String[] sizes = System.getProperty("busticketing.scale.sizes", "1000,10000,100000,1000000").split(",");
+        String layout = System.getProperty("busticketing.scale.layout", "journal");
+        boolean isKept = Boolean.getBoolean("busticketing.scale.keep");
+
+        LinkedHashMap<String, LinkedHashMap<Integer, String>> results = new LinkedHashMap<>();
+        boolean isPassed = true;
+        for (String value : sizes) {
+            int size = Integer.parseInt(value.trim());
+            Path folder = Files.createTempDirectory("busticketing-scale-" + size + "-");
+            try {
+                System.out.println("== " + size + " tickets, in " + folder);
+                isPassed &= fork(DataGenerator.class, null, folder.toString(), String.valueOf(size), layout) == 0;
+                isPassed &= fork(ScaleHarness.class, results, "--run", folder.toString(), String.valueOf(size)) == 0;
+            } finally {
+                if (!isKept) deleteRecursively(folder.toFile());
+            }
+        }
+
+        printTable(results, sizes);
+        String output = System.getProperty("busticketing.scale.output");
+        if (output != null) writeCsv(Paths.get(output), results);
+
+        System.out.println(isPassed ? "PASSED" : "FAILED");
+        System.exit(isPassed ? 0 : 1);
+    }
+
+    private static int fork(Class<?> main, Map<String, LinkedHashMap<Integer, String>> results, String... args) throws Exception {
+        ArrayList<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + System.getProperty("busticketing.scale.heap", "4g"));
+        command.add("-Djava.awt.headless=true");
+        for (String property : PROPAGATED_PROPERTIES) {
+            if (System.getProperty(property) != null) command.add("-D" + property + "=" + System.getProperty(property));
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(main.getName());
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println("  " + line);
+                if (results == null || !line.startsWith(RESULT)) continue;
+
+                String[] fields = line.substring(RESULT.length()).split(" ", 2);
+                results.computeIfAbsent(fields[0], k -> new LinkedHashMap<>()).put(Integer.parseInt(args[2]), fields[1]);
+            }
+        }
+
+        return process.waitFor();
+    }
+
+    private static void printTable(Map<String, LinkedHashMap<Integer, String>> results, String[] sizes) {
+        StringBuilder header = new StringBuilder(String.format("%-40s", "metric"));
+        for (String size : sizes) header.append(String.format("%16s", size.trim()));
+        System.out.println();
+        System.out.println(header);
+
+        for (Map.Entry<String, LinkedHashMap<Integer, String>> entry : results.entrySet()) {
+            StringBuilder row = new StringBuilder(String.format("%-40s", entry.getKey()));
+            for (String size : sizes) {
+                String value = entry.getValue().get(Integer.parseInt(size.trim()));
+                row.append(String.format("%16s", value == null ? "-" : value));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static void writeCsv(Path path, Map<String, LinkedHashMap<Integer, String>> results) throws IOException {
+        StringBuilder builder = new StringBuilder("metric,size,value\n");
+        for (Map.Entry<String, LinkedHashMap<Integer, String>> entry : results.entrySet()) {
+            for (Map.Entry<Integer, String> value : entry.getValue().entrySet()) {
+                builder.append(entry.getKey()).append(',').append(value.getKey()).append(',').append(value.getValue()).append('\n');
+            }
+        }
+
+        Files.write(path, builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) for (File child : children) deleteRecursively(child);
+        file.delete();
+    }
+
+    /**
+     * Measurements of a scale, run in the JVM of the scale.
+     */
+    private static class Scale {
+        private final Path folder;
+        private final int size;
+        private final int operations = Integer.getInteger("busticketing.scale.operations", 1000);
+        private final SyntheticData data;
+        private HttpServer provider;
+
+        Scale(Path folder, int size) {
+            this.folder = folder;
+            this.size = size;
+            this.data = new SyntheticData(size + 1, DataGenerator.START_MILLIS, "h");
+        }
+
+        void run() throws Exception {
+            startProvider();
+            // Before anything touches Helpers, whose root folder and provider are read once.
+            System.setProperty("busticketing.root", folder.toString());
+            System.setProperty("busticketing.provider", "http://127.0.0.1:" + provider.getAddress().getPort() + "/");
+
+            try {
+                // Subscribers on the event thread, as the ticket list and the seat map of the user interface are.
+                Helpers.addOnTicketsSavedListener(tickets -> {
+                });
+                Helpers.addOnTicketRemoveListener(ticket -> {
+                });
+                Helpers.addOnSeatHoldChangedListener(hold -> {
+                });
+
+                measureStartup();
+                ArrayList<Bus> buses = measureSearch();
+                ArrayList<Ticket> purchased = measurePurchase(buses);
+                measureCancel(purchased);
+                measureImport();
+                measureExport();
+                measureBookingServer();
+                measureEvents();
+            } finally {
+                Helpers.shutdown();
+                provider.stop(0);
+            }
+        }
+
+        /**
+         * Serves the journey lists of the provider, generated from the request, so that the same query gets the same
+         * journeys, as the real provider does within the cache lifetime.
+         */
+        private void startProvider() throws IOException {
+            // Of the stand-in provider and the booking server, as the booking server sets it when run on its own.
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            provider = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            provider.createContext("/GetJourneyList", exchange -> {
+                byte[] request = readFully(exchange.getRequestBody());
+                byte[] body = new SyntheticData(Arrays.hashCode(request), DataGenerator.START_MILLIS)
+                        .journeyResponse(40, new Date(DataGenerator.START_MILLIS));
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(body);
+                }
+            });
+            provider.setExecutor(ProviderClient.createExecutor("stand-in-provider", 8));
+            provider.start();
+        }
+
+        private void measureStartup() {
+            long start = System.nanoTime();
+            Helpers.tryLoadPreSavedBuses();
+            Helpers.tryLoadPreSavedTickets();
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println(Helpers.getLoadSummary());
+            result("startup.ms", elapsed / 1000000);
+            result("startup.tickets", Helpers.tickets.size());
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            result("startup.heap.mb", (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        }
+
+        private ArrayList<Bus> measureSearch() {
+            // Read from the saved locations.json, hence synchronously.
+            AtomicReference<ArrayList<Location>> terminals = new AtomicReference<>();
+            Helpers.getAvailableTerminals(terminals::set);
+            ArrayList<Location> locations = terminals.get();
+
+            Random random = new Random(size);
+            Location[][] routes = new Location[operations][];
+            Date[] days = new Date[operations];
+            for (int i = 0; i < operations; i++) {
+                int from = random.nextInt(locations.size()), to = (from + 1 + random.nextInt(locations.size() - 1)) % locations.size();
+                routes[i] = new Location[]{locations.get(from), locations.get(to)};
+                days[i] = new Date(DataGenerator.START_MILLIS + random.nextInt(30) * 24L * 60 * 60 * 1000);
+            }
+
+            // Every query is repeated right after it, as an agent searches again, while its result is in the cache.
+            ArrayList<Bus> buses = new ArrayList<>();
+            long[] coldLatencies = new long[operations], cachedLatencies = new long[operations];
+            for (int i = 0; i < operations; i++) {
+                long start = System.nanoTime();
+                buses.addAll(Helpers.booking.searchJourneys(routes[i][0], routes[i][1], days[i]).join());
+                long searched = System.nanoTime();
+                Helpers.booking.searchJourneys(routes[i][0], routes[i][1], days[i]).join();
+                coldLatencies[i] = searched - start;
+                cachedLatencies[i] = System.nanoTime() - searched;
+            }
+            results("search.cold", coldLatencies);
+            results("search.cached", cachedLatencies);
+
+            return buses;
+        }
+
+        private ArrayList<Ticket> measurePurchase(ArrayList<Bus> buses) {
+            Random random = new Random(size);
+            ArrayList<Ticket> purchased = new ArrayList<>(operations);
+            long[] latencies = new long[operations];
+            long start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                long operationStart = System.nanoTime();
+                Bus bus = buses.get(random.nextInt(buses.size()));
+                SeatHold hold = holdFreeSeat(bus, random);
+                if (hold != null) {
+                    Passenger passenger = data.passenger();
+                    bus.addPassenger(passenger);
+                    Ticket ticket = ticket(bus, hold.getSeat());
+                    ticket.setOwner(passenger);
+                    if (Helpers.booking.purchase(ticket, hold).join()) purchased.add(ticket);
+                }
+                latencies[i] = System.nanoTime() - operationStart;
+            }
+            Helpers.persistence.flush().join();
+
+            results("purchase", latencies);
+            result("purchase.per.s", (long) (purchased.size() / ((System.nanoTime() - start) / 1e9)));
+            return purchased;
+        }
+
+        private static SeatHold holdFreeSeat(Bus bus, Random random) {
+            int seat = 1 + random.nextInt(bus.getSeatNumber());
+            for (int i = 0; i < bus.getSeatNumber(); i++) {
+                SeatHold hold = Helpers.seatHolds.tryHold(bus, seat);
+                if (hold != null) return hold;
+                seat = seat % bus.getSeatNumber() + 1;
+            }
+
+            return null;
+        }
+
+        private void measureCancel(ArrayList<Ticket> purchased) {
+            long[] latencies = new long[purchased.size()];
+            long start = System.nanoTime();
+            for (int i = 0; i < purchased.size(); i++) {
+                long operationStart = System.nanoTime();
+                Helpers.booking.cancel(purchased.get(i)).join();
+                latencies[i] = System.nanoTime() - operationStart;
+            }
+            Helpers.persistence.flush().join();
+
+            results("cancel", latencies);
+            result("cancel.per.s", (long) (purchased.size() / ((System.nanoTime() - start) / 1e9)));
+        }
+
+        private void measureImport() throws IOException {
+            // Tickets of the next year, so that none of them conflicts with the saved ones.
+            SyntheticData importData = new SyntheticData(size + 2, DataGenerator.START_MILLIS + YEAR_MILLIS, "i");
+            ArrayList<Ticket> tickets = importData.tickets(Math.max(1000, size / 10), importData.locations(DataGenerator.LOCATION_COUNT));
+            Path file = folder.resolve("import.json");
+            new TicketExporter(tickets).write(file);
+            tickets = null;
+
+            long start = System.nanoTime();
+            TicketImporter importer = new TicketImporter(file, 1000);
+            int[] importedCount = {0};
+            importer.read(batch -> {
+                ArrayList<Ticket> added = Helpers.addTickets(batch);
+                for (Ticket ticket : added) Helpers.persistence.save(ticket);
+                importedCount[0] += added.size();
+            });
+            Helpers.persistence.flush().join();
+
+            result("import.ms", (System.nanoTime() - start) / 1000000);
+            result("import.tickets", importedCount[0]);
+        }
+
+        private void measureExport() throws IOException {
+            Path file = folder.resolve("export.json.gz");
+            long start = System.nanoTime();
+            new TicketExporter(Helpers.tickets.toList()).write(file);
+
+            result("export.ms", (System.nanoTime() - start) / 1000000);
+            result("export.tickets", Helpers.tickets.size());
+            result("export.kb", Files.size(file) / 1024);
+        }
+
+        /**
+         * Creates a ticket of a seat, without an owner, whose id is unique among the tickets of the data set.
+         */
+        private Ticket ticket(Bus bus, int seat) {
+            Ticket ticket;
+            synchronized (data) {
+                ticket = new Ticket(data.ticketId());
+            }
+            ticket.setBus(bus);
+            ticket.setSeatNumber(seat);
+            return ticket;
+        }
+
+        private void measureEvents() {
+            System.out.println(Helpers.getEventSummary());
+            for (EventBus.Topic<?> topic : new EventBus.Topic<?>[]{Helpers.TICKETS_SAVED, Helpers.TICKET_REMOVED, Helpers.SEAT_HOLD_CHANGED}) {
+                EventBus.Metrics metrics = topic.getMetrics();
+                result("events." + topic.getName() + ".published", metrics.getPublishedCount());
+                result("events." + topic.getName() + ".latency.max.us", metrics.getMaxLatencyNanos() / 1000);
+                result("events." + topic.getName() + ".slow", metrics.getSlowDeliveryCount());
+            }
+        }
+
+        /**
+         * Purchases tickets of fresh journeys through a booking server over HTTP, searches their routes and cancels
+         * them, with many requests in flight, measuring the requests per second the server handles in each step.
+         */
+        private void measureBookingServer() throws IOException {
+            BookingHttpServer server = new BookingHttpServer(new LocalBookingService(), new InetSocketAddress("127.0.0.1", 0), 64);
+            server.start();
+            ProviderClient client = new ProviderClient("http://127.0.0.1:" + server.getAddress().getPort(),
+                    Integer.getInteger("busticketing.scale.server.clients", 16), 5000, 30000);
+
+            try {
+                // Journeys of two years later, which have no tickets yet.
+                SyntheticData serverData = new SyntheticData(size + 3, DataGenerator.START_MILLIS + 2 * YEAR_MILLIS, "s");
+                ArrayList<Bus> buses = serverData.buses(operations / 40 + 1, serverData.locations(DataGenerator.LOCATION_COUNT));
+
+                ArrayList<String> ticketPaths = new ArrayList<>(operations), searchPaths = new ArrayList<>(operations);
+                ArrayList<byte[]> bodies = new ArrayList<>(operations);
+                for (int i = 0; i < operations; i++) {
+                    Bus bus = buses.get(i % buses.size());
+                    Passenger passenger = serverData.passenger();
+                    bus.addPassenger(passenger);
+                    Ticket ticket = new Ticket(serverData.ticketId());
+                    ticket.setBus(bus);
+                    ticket.setSeatNumber(i / buses.size() + 1);
+                    ticket.setOwner(passenger);
+
+                    ticketPaths.add("tickets/" + URLEncoder.encode(ticket.getId(), "UTF-8"));
+                    searchPaths.add(searchPath(bus));
+                    bodies.add(ticket.toJson().toString().getBytes(StandardCharsets.UTF_8));
+                }
+
+                result("server.purchased", drive(server, client, "purchase", "POST", Collections.nCopies(operations, "tickets"), bodies, 201));
+                result("server.searched", drive(server, client, "search", "GET", searchPaths, null, 200));
+                result("server.cancelled", drive(server, client, "cancel", "DELETE", ticketPaths, null, 204));
+                result("server.requests", server.getRequestCount());
+            } finally {
+                client.shutdown();
+                server.stop(0);
+            }
+        }
+
+        /**
+         * Sends the requests of a step at once, the client keeping a number of them in flight, and reports the requests
+         * handled by the server per second.
+         *
+         * @return Number of the responses with the expected status.
+         */
+        private static int drive(BookingHttpServer server, ProviderClient client, String name, String method,
+                                 List<String> paths, List<byte[]> bodies, int expectedStatus) {
+            ArrayList<CompletableFuture<ProviderClient.Response>> responses = new ArrayList<>(paths.size());
+            long requestCount = server.getRequestCount(), start = System.nanoTime();
+            for (int i = 0; i < paths.size(); i++) {
+                byte[] body = bodies == null ? null : bodies.get(i);
+                responses.add(client.send(method, paths.get(i), body == null ? null : JSON, body));
+            }
+
+            int expectedCount = 0;
+            for (CompletableFuture<ProviderClient.Response> response : responses) {
+                if (response.join().getStatus() == expectedStatus) expectedCount++;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            result("server." + name + ".per.s", (long) ((server.getRequestCount() - requestCount) / (elapsed / 1e9)));
+            return expectedCount;
+        }
+
+        private static String searchPath(Bus bus) {
+            LinkedHashMap<String, String> query = new LinkedHashMap<>();
+            query.put("from", bus.getFrom().getHtmlValue());
+            query.put("fromName", bus.getFrom().getName());
+            query.put("to", bus.getTo().getHtmlValue());
+            query.put("toName", bus.getTo().getName());
+            query.put("date", DateCodec.formatIso(bus.getMovementDate()));
+            return "journeys?" + new String(ProviderClient.encodeForm(query), StandardCharsets.UTF_8);
+        }
+
+        private void results(String name, long[] latencies) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            result(name + ".p50.us", sorted[sorted.length / 2] / 1000);
+            result(name + ".p99.us", sorted[Math.min(sorted.length - 1, sorted.length * 99 / 100)] / 1000);
+        }
+
+        private static void result(String name, long value) {
+            System.out.println(RESULT + name + " " + value);
+        }
+
+        private static byte[] readFully(InputStream input) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+}
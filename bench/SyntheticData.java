@@ -0,0 +1,245 @@
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * Generator of synthetic, yet realistic, data sets of locations, buses, passengers, baggages and tickets.
+ * The data is deterministic for a seed: the same seed and sizes generate the same data set, so the measurements of
+ * different runs are comparable.
+ */
+public class SyntheticData {
+    private static final String[] CITIES = {
+            "İSTANBUL", "ANKARA", "İZMİR", "BURSA", "ANTALYA", "KONYA", "ADANA", "ŞANLIURFA", "GAZİANTEP", "KOCAELİ",
+            "MERSİN", "DİYARBAKIR", "HATAY", "MANİSA", "KAYSERİ", "SAMSUN", "BALIKESİR", "KAHRAMANMARAŞ", "VAN",
+            "AYDIN", "DENİZLİ", "SAKARYA", "TEKİRDAĞ", "MUĞLA", "ESKİŞEHİR", "MARDİN", "MALATYA", "TRABZON", "ERZURUM",
+            "ORDU", "ÇANAKKALE", "ÇORUM", "AFYONKARAHİSAR", "SİVAS", "TOKAT", "ELAZIĞ", "ZONGULDAK", "KÜTAHYA"
+    };
+    private static final String[] TERMINALS = {"OTOGAR", "MERKEZ", "ŞEHİRİÇİ", "HAVALİMANI"};
+    private static final String[] MALE_NAMES = {
+            "Mehmet", "Mustafa", "Ahmet", "Ali", "Hüseyin", "Hasan", "İbrahim", "İsmail", "Osman", "Yusuf", "Murat",
+            "Ömer", "Ramazan", "Halil", "Süleyman", "Abdullah", "Mahmut", "Recep", "Salih", "Fatih", "Kemal", "Emre"
+    };
+    private static final String[] FEMALE_NAMES = {
+            "Fatma", "Ayşe", "Emine", "Hatice", "Zeynep", "Elif", "Meryem", "Şerife", "Zehra", "Sultan", "Hanife",
+            "Merve", "Havva", "Zeliha", "Esra", "Fadime", "Özlem", "Hacer", "Melek", "Yasemin", "Gülsüm", "Büşra"
+    };
+    private static final String[] SURNAMES = {
+            "Yılmaz", "Kaya", "Demir", "Şahin", "Çelik", "Yıldız", "Yıldırım", "Öztürk", "Aydın", "Özdemir", "Arslan",
+            "Doğan", "Kılıç", "Aslan", "Çetin", "Kara", "Koç", "Kurt", "Özkan", "Şimşek", "Polat", "Öz", "Korkmaz"
+    };
+    private static final int SEAT_COUNT = 46;
+    private static final long MILLIS_PER_HOUR = 1000 * 60 * 60;
+
+    private final Random random;
+    private final long startMillis;
+    private final String idPrefix;
+    private int nextTicketId, nextBusIndex;
+
+    /**
+     * Instantiates a new Synthetic data generator.
+     *
+     * @param seed        Seed of the random values.
+     * @param startMillis Time of the first journey, in milliseconds since the epoch.
+     */
+    public SyntheticData(long seed, long startMillis) {
+        this(seed, startMillis, "");
+    }
+
+    /**
+     * Instantiates a new Synthetic data generator, whose ticket ids differ from the ones of the other generators.
+     *
+     * @param seed        Seed of the random values.
+     * @param startMillis Time of the first journey, in milliseconds since the epoch.
+     * @param idPrefix    Prefix of the ticket ids.
+     */
+    public SyntheticData(long seed, long startMillis, String idPrefix) {
+        this.random = new Random(seed);
+        this.startMillis = startMillis;
+        this.idPrefix = idPrefix;
+    }
+
+    /**
+     * Generates locations, a terminal of a city each, then the other terminals of the cities.
+     *
+     * @param count Number of the locations.
+     * @return The interned locations.
+     */
+    public ArrayList<Location> locations(int count) {
+        ArrayList<Location> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String city = CITIES[i % CITIES.length];
+            int terminal = i / CITIES.length;
+            String name = terminal < TERMINALS.length
+                    ? city + " (" + TERMINALS[terminal] + ")"
+                    : city + " (PERON " + (terminal - TERMINALS.length + 1) + ")";
+            locations.add(Location.intern(new Location(name, String.valueOf(100 + i))));
+        }
+
+        return locations;
+    }
+
+    /**
+     * Generates tickets of fully or partly sold buses, with the owners as the passengers of the buses and every third
+     * owner carrying a baggage. The buses depart hourly, on routes between the given locations.
+     *
+     * @param count     Number of the tickets.
+     * @param locations Locations of the routes, at least two.
+     * @return The tickets, in the order of their buses.
+     */
+    public ArrayList<Ticket> tickets(int count, ArrayList<Location> locations) {
+        ArrayList<Ticket> tickets = new ArrayList<>(count);
+        int[] seats = new int[SEAT_COUNT];
+        while (tickets.size() < count) {
+            Bus bus = bus(nextBusIndex++, locations);
+            int sold = Math.min(count - tickets.size(), SEAT_COUNT / 2 + random.nextInt(SEAT_COUNT / 2 + 1));
+            shuffleSeats(seats);
+
+            for (int i = 0; i < sold; i++) {
+                Passenger passenger = passenger();
+                bus.getPassengers().add(passenger);
+
+                Ticket ticket = new Ticket(ticketId());
+                ticket.setBus(bus);
+                ticket.setSeatNumber(seats[i]);
+                ticket.setOwner(passenger);
+                ticket.setFrom(bus.getFrom());
+                ticket.setTo(bus.getTo());
+                ticket.setDate(bus.getMovementDate());
+                if (random.nextInt(3) == 0) {
+                    Baggage baggage = new Baggage();
+                    baggage.setOwner(passenger);
+                    baggage.setWeight(5 + random.nextInt(26));
+                    ticket.setBaggage(baggage);
+                }
+
+                tickets.add(ticket);
+            }
+        }
+
+        return tickets;
+    }
+
+    /**
+     * Generates buses without any tickets, departing after the buses generated so far.
+     *
+     * @param count     Number of the buses.
+     * @param locations Locations of the routes, at least two.
+     * @return The buses.
+     */
+    public ArrayList<Bus> buses(int count, ArrayList<Location> locations) {
+        ArrayList<Bus> buses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) buses.add(bus(nextBusIndex++, locations));
+        return buses;
+    }
+
+    /**
+     * Generates the id of a new ticket, unique among the tickets of this generator.
+     *
+     * @return The ticket id.
+     */
+    public String ticketId() {
+        return idPrefix + (++nextTicketId);
+    }
+
+    /**
+     * Generates a passenger with a valid TC identity number.
+     *
+     * @return The passenger.
+     */
+    public Passenger passenger() {
+        boolean isMale = random.nextBoolean();
+        String[] names = isMale ? MALE_NAMES : FEMALE_NAMES;
+
+        Passenger passenger = new Passenger();
+        passenger.setId(identifier());
+        passenger.setName(names[random.nextInt(names.length)]);
+        passenger.setSurname(SURNAMES[random.nextInt(SURNAMES.length)]);
+        passenger.setPhone(String.format("(5%02d) %03d-%04d", 30 + random.nextInt(30), random.nextInt(1000), random.nextInt(10000)));
+        passenger.setMale(isMale);
+        return passenger;
+    }
+
+    /**
+     * Generates a valid TC identity number: 11 digits, not starting with zero, whose 10th digit is the sum of the
+     * odd placed digits times 7 minus the sum of the even placed digits, and whose 11th digit is the sum of the first
+     * 10 digits, in modulo 10.
+     *
+     * @return The identity number.
+     */
+    public long identifier() {
+        int[] digits = new int[11];
+        digits[0] = 1 + random.nextInt(9);
+        for (int i = 1; i < 9; i++) digits[i] = random.nextInt(10);
+
+        int totalOdd = digits[0] + digits[2] + digits[4] + digits[6] + digits[8];
+        int totalEven = digits[1] + digits[3] + digits[5] + digits[7];
+        digits[9] = Math.floorMod(totalOdd * 7 - totalEven, 10);
+        digits[10] = (totalOdd + totalEven + digits[9]) % 10;
+
+        long id = 0;
+        for (int digit : digits) id = id * 10 + digit;
+        return id;
+    }
+
+    /**
+     * Generates a journey list response of the provider, in the layout its parser reads, with the fields which are
+     * skipped as well.
+     *
+     * @param rows Number of the journeys.
+     * @param day  Day of the journeys.
+     * @return The response body, encoded in UTF-8.
+     */
+    public byte[] journeyResponse(int rows, Date day) {
+        String date = new SimpleDateFormat("yyyy-MM-dd").format(day) + "T00:00:00";
+        String nextDate = new SimpleDateFormat("yyyy-MM-dd").format(new Date(day.getTime() + 24 * MILLIS_PER_HOUR)) + "T00:00:00";
+
+        StringBuilder builder = new StringBuilder(rows * 600)
+                .append("{\"bothWay\":{\"rc1\":[]},\"connectedCity\":\"\",\"connectedJourneyList\":null,\"oneWay\":{\"rc1\":[");
+        for (int i = 0; i < rows; i++) {
+            int boarding = random.nextInt(24 * 60), travel = 120 + random.nextInt(12 * 60), landing = (boarding + travel) % (24 * 60);
+            if (i > 0) builder.append(',');
+            builder.append("{\"PLAKA\":\"").append(String.format("%02d %s %d", 1 + random.nextInt(81), "MT", 100 + i))
+                    .append("\",\"UNIQUE_KEY\":\"").append(random.nextInt(Integer.MAX_VALUE))
+                    .append("\",\"FIRMA\":\"METRO TURİZM\",\"OTOBUS_TIPI\":\"2+1 Travego\",\"TOTALSEAT\":").append(SEAT_COUNT)
+                    .append(",\"BINIS_SAATI\":\"").append(String.format("%02d:%02d", boarding / 60, boarding % 60))
+                    .append("\",\"SEFERDATE\":\"").append(date)
+                    .append("\",\"GEN_SOLDSEAT\":").append(random.nextInt(SEAT_COUNT + 1))
+                    .append(",\"GEN_WEBPRICE\":").append(80 + random.nextInt(40) * 5).append(".0")
+                    .append(",\"INIS_ANAYOLDATE\":\"").append(boarding + travel < 24 * 60 ? date : nextDate)
+                    .append("\",\"INIS_ARAYOLDATE\":\"").append(boarding + travel < 24 * 60 ? date : nextDate)
+                    .append("\",\"INIS_SAATI\":\"").append(String.format("%02d:%02d", landing / 60, landing % 60))
+                    .append("\",\"GUZERGAH\":\"").append(CITIES[random.nextInt(CITIES.length)]).append(" - ").append(CITIES[random.nextInt(CITIES.length)])
+                    .append("\",\"ACIKLAMA\":\"Koltuk arası \\\"geniş\\\", ikramlı\",\"WIFI\":true,\"KAMPANYA\":null}");
+        }
+
+        return builder.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Bus bus(int index, ArrayList<Location> locations) {
+        int routeCount = locations.size() * (locations.size() - 1);
+        int route = index % routeCount;
+        Location from = locations.get(route / (locations.size() - 1));
+        Location to = locations.get(route % (locations.size() - 1));
+        if (to == from) to = locations.get(locations.size() - 1);
+
+        long movement = startMillis + (index / routeCount) * MILLIS_PER_HOUR;
+        // Plates are unique, since the bus files are named by them.
+        Bus bus = new Bus(String.format("%02d %c%c %d", 1 + route % 81, (char) ('A' + route % 26), (char) ('A' + index % 26), 100 + index), SEAT_COUNT, from, to);
+        bus.setMovementDate(new Date(movement));
+        bus.setLandingDate(new Date(movement + (2 + random.nextInt(12)) * MILLIS_PER_HOUR));
+        bus.setPrice(80 + random.nextInt(40) * 5);
+        return bus;
+    }
+
+    private void shuffleSeats(int[] seats) {
+        for (int i = 0; i < seats.length; i++) seats[i] = i + 1;
+        for (int i = seats.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int seat = seats[i];
+            seats[i] = seats[j];
+            seats[j] = seat;
+        }
+    }
+}
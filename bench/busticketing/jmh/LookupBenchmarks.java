@@ -0,0 +1,78 @@
+package busticketing.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the lookups through the store and the registries, which depend on the number of the tickets, hence run
+ * on every size. The inputs are picked randomly, as the user interface touches the data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LookupBenchmarks {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Workload workload;
+    private Workload.Operation remainingSeats, ticketOwner, baggageOwner, journeyTickets;
+    private int index;
+
+    /**
+     * Generates the tickets of the size into the store.
+     *
+     * @throws Exception If the tickets could not be generated.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workload = Workload.create("DomainWorkloads$Lookups", size);
+        remainingSeats = workload.getOperation("Bus.getRemainingSeatNumber");
+        ticketOwner = workload.getOperation("Ticket.getOwner");
+        baggageOwner = workload.getOperation("Baggage.getOwner");
+        journeyTickets = workload.getOperation("TicketStore.getByJourney");
+    }
+
+    /**
+     * Clears the store.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object busGetRemainingSeatNumber() throws Exception {
+        return remainingSeats.run(index++);
+    }
+
+    @Benchmark
+    public Object ticketGetOwner() throws Exception {
+        return ticketOwner.run(index++);
+    }
+
+    @Benchmark
+    public Object baggageGetOwner() throws Exception {
+        return baggageOwner.run(index++);
+    }
+
+    @Benchmark
+    public Object ticketStoreGetByJourney() throws Exception {
+        return journeyTickets.run(index++);
+    }
+}
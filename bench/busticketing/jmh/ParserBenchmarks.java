@@ -0,0 +1,58 @@
+package busticketing.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the parsing of the journey list responses of the provider, by the number of the journeys listed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmarks {
+    @Param({"50", "500"})
+    public int rows;
+
+    private Workload workload;
+    private Workload.Operation parse;
+
+    /**
+     * Generates the response.
+     *
+     * @throws Exception If the response could not be generated.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workload = Workload.create("DomainWorkloads$Parsing", rows);
+        parse = workload.getOperation("JourneyResponseParser.parse");
+    }
+
+    /**
+     * Releases the response.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object journeyResponseParserParse() throws Exception {
+        return parse.run(0);
+    }
+}
@@ -0,0 +1,116 @@
+package busticketing.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the serialization, loading, exporting, validation and the date codec, which do not depend on the
+ * number of the tickets, hence run on a sample of the tickets. An export writes the whole sample, over the file of the
+ * previous one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SampleBenchmarks {
+    private static final int SAMPLE_SIZE = 1000;
+
+    private Workload workload;
+    private Workload.Operation ticketToJson, busToJson, ticketLoadFromFile;
+    private Workload.Operation formatIso, parseIso, formatDateMinute;
+    private Workload.Operation exportJson, exportJsonGz;
+    private Workload.Operation getDigits, isIdentifierValid;
+    private int index;
+
+    /**
+     * Generates the sample, and saves its tickets as the ticket files of the older versions.
+     *
+     * @throws Exception If the sample could not be generated.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workload = Workload.create("DomainWorkloads$Samples", SAMPLE_SIZE);
+        ticketToJson = workload.getOperation("Ticket.toJson");
+        busToJson = workload.getOperation("Bus.toJson");
+        ticketLoadFromFile = workload.getOperation("Ticket.loadFromFile");
+        formatIso = workload.getOperation("DateCodec.formatIso");
+        parseIso = workload.getOperation("DateCodec.parseIso");
+        formatDateMinute = workload.getOperation("DateCodec.formatDateMinute");
+        exportJson = workload.getOperation("TicketExporter.write export.json");
+        exportJsonGz = workload.getOperation("TicketExporter.write export.json.gz");
+        getDigits = workload.getOperation("Helpers.getDigits");
+        isIdentifierValid = workload.getOperation("PurchaseDialog.isIdentifierValid");
+    }
+
+    /**
+     * Deletes the files of the sample.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object ticketToJson() throws Exception {
+        return ticketToJson.run(index++);
+    }
+
+    @Benchmark
+    public Object busToJson() throws Exception {
+        return busToJson.run(index++);
+    }
+
+    @Benchmark
+    public Object ticketLoadFromFile() throws Exception {
+        return ticketLoadFromFile.run(index++);
+    }
+
+    @Benchmark
+    public Object dateCodecFormatIso() throws Exception {
+        return formatIso.run(index++);
+    }
+
+    @Benchmark
+    public Object dateCodecParseIso() throws Exception {
+        return parseIso.run(index++);
+    }
+
+    @Benchmark
+    public Object dateCodecFormatDateMinute() throws Exception {
+        return formatDateMinute.run(index++);
+    }
+
+    @Benchmark
+    public Object ticketExporterWriteJson() throws Exception {
+        return exportJson.run(index++);
+    }
+
+    @Benchmark
+    public Object ticketExporterWriteJsonGz() throws Exception {
+        return exportJsonGz.run(index++);
+    }
+
+    @Benchmark
+    public Object helpersGetDigits() throws Exception {
+        return getDigits.run(index++);
+    }
+
+    @Benchmark
+    public Object purchaseDialogIsIdentifierValid() throws Exception {
+        return isIdentifierValid.run(index++);
+    }
+}
@@ -0,0 +1,59 @@
+package busticketing.jmh;
+
+/**
+ * Workload of the benchmarks, prepared on a data set and run as named operations.
+ * The workloads are written against the application, whose classes are in the default package, which the benchmarks
+ * cannot reference, since JMH requires them in a named package. Hence the benchmarks create the workloads by their
+ * class names, and run their operations through this interface.
+ */
+public interface Workload {
+    /**
+     * An operation to benchmark.
+     */
+    interface Operation {
+        /**
+         * Runs the operation once.
+         *
+         * @param index Index of the invocation, to pick the input of the invocation with.
+         * @return Result of the operation, which the benchmark consumes.
+         * @throws Exception If the operation fails, which fails the benchmark.
+         */
+        Object run(int index) throws Exception;
+    }
+
+    /**
+     * Prepares the data set of the workload.
+     *
+     * @param size Size of the data set.
+     * @throws Exception If the data set could not be prepared.
+     */
+    void setUp(int size) throws Exception;
+
+    /**
+     * Gets an operation of the workload.
+     *
+     * @param name Name of the operation.
+     * @return The operation.
+     * @throws IllegalArgumentException If the workload has no such operation.
+     */
+    Operation getOperation(String name);
+
+    /**
+     * Releases the data set and the files of the workload.
+     */
+    void tearDown();
+
+    /**
+     * Creates a workload by its class name and prepares its data set.
+     *
+     * @param className Binary name of the workload class, which has a public no argument constructor.
+     * @param size      Size of the data set.
+     * @return The prepared workload.
+     * @throws Exception If the workload could not be created or prepared.
+     */
+    static Workload create(String className, int size) throws Exception {
+        Workload workload = (Workload) Class.forName(className).getConstructor().newInstance();
+        workload.setUp(size);
+        return workload;
+    }
+}
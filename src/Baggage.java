@@ -16,13 +16,7 @@ public class Baggage implements Serializable {
      */
     @JsonIgnore
     public Passenger getOwner() {
-        for (Passenger passenger : Helpers.passengers) {
-            if (passenger.getId() == ownerId) {
-                return passenger;
-            }
-        }
-
-        return null;
+        return Helpers.passengers.get(ownerId);
     }
 
     /**
@@ -43,6 +37,15 @@ public class Baggage implements Serializable {
         return ownerId;
     }
 
+    /**
+     * Sets the ID of the owner.
+     *
+     * @param ownerId ID of the owner.
+     */
+    void setOwnerId(long ownerId) {
+        this.ownerId = ownerId;
+    }
+
     /**
      * Gets the weight of this baggage.
      *
@@ -0,0 +1,244 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP API of a booking service, so that many agents share the same tickets and seats.
+ * The requests are:
+ * <ul>
+ * <li>GET /journeys?from=&amp;fromName=&amp;to=&amp;toName=&amp;date= searches the journeys, with the seats sold of
+ * each journey.</li>
+ * <li>POST /tickets purchases the ticket in the body, responding 201, or 409 if its seat has been sold already.</li>
+ * <li>DELETE /tickets/{id} cancels a ticket, responding 204, or 404 if there is no such ticket.</li>
+ * <li>GET /tickets lists the tickets, streaming them as a JSON array.</li>
+ * </ul>
+ * The requests are handled on the executor of the blocking I/O tasks, hence every request has a thread of its own.
+ */
+public class BookingHttpServer {
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final BookingService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder requestCount = new LongAdder();
+
+    /**
+     * Instantiates a new Booking http server, which is not started yet.
+     *
+     * @param service     Booking service to serve.
+     * @param address     Address to listen on.
+     * @param threadCount Number of the request threads, if virtual threads are not supported.
+     * @throws IOException If the address could not be bound.
+     */
+    public BookingHttpServer(BookingService service, InetSocketAddress address, int threadCount) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(address, 0);
+        this.executor = ProviderClient.createExecutor("booking-http", threadCount);
+
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waiting for the requests in progress for at most a given duration.
+     *
+     * @param delaySeconds Maximum duration to wait, in seconds.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the address the server listens on.
+     *
+     * @return The bound address.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Gets the number of the requests handled since the start.
+     *
+     * @return The request count.
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.increment();
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+
+            if (path.equals("/journeys")) {
+                if (method.equals("GET")) searchJourneys(exchange);
+                else respond(exchange, 405);
+            } else if (path.equals("/tickets")) {
+                if (method.equals("GET")) listTickets(exchange);
+                else if (method.equals("POST")) purchase(exchange);
+                else respond(exchange, 405);
+            } else if (path.startsWith("/tickets/") && path.length() > "/tickets/".length()) {
+                if (method.equals("DELETE")) cancel(exchange, decode(path.substring("/tickets/".length())));
+                else respond(exchange, 405);
+            } else {
+                respond(exchange, 404);
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400);
+        } catch (Exception e) {
+            e.printStackTrace();
+            respond(exchange, 500);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void searchJourneys(HttpExchange exchange) throws IOException {
+        HashMap<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Location from = Location.intern(new Location(require(query, "fromName"), require(query, "from")));
+        Location to = Location.intern(new Location(require(query, "toName"), require(query, "to")));
+        Date date = new Date(DateCodec.parseIso(require(query, "date")));
+
+        ArrayList<Bus> buses = join(service.searchJourneys(from, to, date));
+        JSONArray array = new JSONArray();
+        for (Bus bus : buses) {
+            JSONArray soldSeats = new JSONArray();
+            for (Ticket ticket : Helpers.tickets.getByJourney(bus)) soldSeats.put(ticket.getSeatNumber());
+
+            JSONObject journey = new JSONObject();
+            journey.put("bus", bus.toJson());
+            journey.put("soldSeats", soldSeats);
+            array.put(journey);
+        }
+
+        respond(exchange, 200, array.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void purchase(HttpExchange exchange) throws IOException {
+        Ticket ticket;
+        try (InputStream input = exchange.getRequestBody()) {
+            ticket = Ticket.fromJson(readFully(input));
+        } catch (IOException e) {
+            respond(exchange, 400);
+            return;
+        }
+
+        if (ticket.getBus() == null || ticket.getBus().getPassengers() == null) {
+            respond(exchange, 400);
+            return;
+        }
+
+        respond(exchange, join(service.purchase(ticket, null)) ? 201 : 409);
+    }
+
+    private void cancel(HttpExchange exchange, String id) throws IOException {
+        respond(exchange, join(service.cancel(new Ticket(id))) ? 204 : 404);
+    }
+
+    private void listTickets(HttpExchange exchange) throws IOException {
+        ArrayList<Ticket> tickets = join(service.listTickets());
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean isCompressed = acceptEncoding != null && acceptEncoding.contains("gzip");
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        if (isCompressed) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream output = exchange.getResponseBody();
+        output = isCompressed ? new GZIPOutputStream(output, BUFFER_SIZE) : new BufferedOutputStream(output, BUFFER_SIZE);
+        try (OutputStream stream = output) {
+            stream.write('[');
+            for (int i = 0, limit = tickets.size(); i < limit; i++) {
+                if (i > 0) stream.write(',');
+                stream.write(tickets.get(i).toJson().toString().getBytes(StandardCharsets.UTF_8));
+            }
+            stream.write(']');
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static HashMap<String, String> parseQuery(String query) {
+        HashMap<String, String> values = new HashMap<>();
+        if (query == null || query.isEmpty()) return values;
+
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            if (index < 0) values.put(decode(pair), "");
+            else values.put(decode(pair.substring(0, index)), decode(pair.substring(index + 1)));
+        }
+
+        return values;
+    }
+
+    private static String require(HashMap<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) throw new IllegalArgumentException("Missing parameter " + name);
+        return value;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Booking operations of the system, independent of the user interface.
+ * The operations run either on the store of this process, or on a booking server shared by many agents.
+ */
+public interface BookingService {
+    /**
+     * Searches the journeys of a route and a day which have remaining seats.
+     *
+     * @param from Movement location.
+     * @param to   Landing location.
+     * @param date Day of the journeys.
+     * @return A future, completed with the buses of the journeys.
+     */
+    CompletableFuture<ArrayList<Bus>> searchJourneys(Location from, Location to, Date date);
+
+    /**
+     * Purchases a ticket, selling its seat. The owner of the ticket shall be one of the passengers of its bus.
+     *
+     * @param ticket Ticket to purchase.
+     * @param hold   Hold of the seat of the ticket, or null if it is not held.
+     * @return A future, completed with true if purchased, or false if the seat has been sold already.
+     */
+    CompletableFuture<Boolean> purchase(Ticket ticket, SeatHold hold);
+
+    /**
+     * Cancels a ticket, freeing its seat.
+     *
+     * @param ticket Ticket to cancel.
+     * @return A future, completed with true if cancelled, or false if there is no such ticket.
+     */
+    CompletableFuture<Boolean> cancel(Ticket ticket);
+
+    /**
+     * Lists the tickets bought.
+     *
+     * @return A future, completed with the tickets, in the order they were bought.
+     */
+    CompletableFuture<ArrayList<Ticket>> listTickets();
+}
@@ -13,11 +13,12 @@ import java.util.Date;
  */
 public class Bus implements Comparable<Bus>, Serializable, Savable {
     private String code;
-    private ArrayList<Passenger> passengers;
+    private volatile ArrayList<Passenger> passengers;
     private int seatNumber, soldSeat;
     private Location from, to;
     private Date movementDate, landingDate;
     private double price;
+    private transient JourneyKey key;
 
     /**
      * Instantiates a new Bus.
@@ -36,8 +37,8 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
     public Bus(String code, int seatCount, Location from, Location to) {
         this.passengers = new ArrayList<>();
         this.code = code;
-        this.from = from;
-        this.to = to;
+        this.from = Location.intern(from);
+        this.to = Location.intern(to);
         this.seatNumber = seatCount;
     }
 
@@ -53,7 +54,9 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
             if (!fileName.startsWith("bus-")) fileName = "bus-" + fileName;
 
             File file = new File(Helpers.ROOT_FOLDER_PATH + fileName);
-            return Helpers.JSON_MAPPER.readValue(file, Bus.class);
+            Bus bus = Helpers.JSON_MAPPER.readValue(file, Bus.class);
+            bus.internLocations();
+            return bus;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -70,8 +73,31 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
         return code;
     }
 
+    /**
+     * Gets the journey key of this bus.
+     * Buses having the same key are considered as the same journey.
+     *
+     * @return The journey key of the bus.
+     */
+    JourneyKey getKey() {
+        JourneyKey key = this.key;
+        if (key == null) this.key = key = JourneyKey.of(this);
+        return key;
+    }
+
+    /**
+     * Replaces the locations of this bus with their canonical instances.
+     * This should be called after the bus is deserialized.
+     */
+    void internLocations() {
+        from = Location.intern(from);
+        to = Location.intern(to);
+    }
+
     /**
      * Gets the list of the passengers in this bus.
+     * Adding or removing a passenger replaces the list with a changed copy, hence the list may be iterated and
+     * serialized while a sale changes the passengers. The list of a bus which is shared must not be modified.
      *
      * @return The list of the passengers in the bus.
      */
@@ -79,6 +105,32 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
         return passengers;
     }
 
+    /**
+     * Adds a passenger to this bus, replacing the list of the passengers with a copy.
+     *
+     * @param passenger Passenger to add.
+     */
+    public synchronized void addPassenger(Passenger passenger) {
+        ArrayList<Passenger> changed = passengers == null ? new ArrayList<>() : new ArrayList<>(passengers);
+        changed.add(passenger);
+        passengers = changed;
+    }
+
+    /**
+     * Removes a passenger from this bus, replacing the list of the passengers with a copy.
+     *
+     * @param passenger Passenger to remove.
+     * @return True if the passenger was in the bus.
+     */
+    public synchronized boolean removePassenger(Passenger passenger) {
+        if (passengers == null || !passengers.contains(passenger)) return false;
+
+        ArrayList<Passenger> changed = new ArrayList<>(passengers);
+        changed.remove(passenger);
+        passengers = changed;
+        return true;
+    }
+
     /**
      * Sets the passengers of this bus at once (with a list).
      *
@@ -131,6 +183,7 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
      */
     public void setMovementDate(Date movementDate) {
         this.movementDate = movementDate;
+        this.key = null;
     }
 
     /**
@@ -140,16 +193,7 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
      */
     @JsonIgnore
     public int getRemainingSeatNumber() {
-        int sold = 0;
-        if (Helpers.tickets != null) {
-            for (Ticket ticket : Helpers.tickets) {
-                if (this.equals(ticket.getBus())) {
-                    sold++;
-                }
-            }
-        }
-
-        return seatNumber - soldSeat - sold;
+        return Helpers.tickets.getOccupancy(this).getRemainingSeatNumber();
     }
 
     /**
@@ -213,33 +257,22 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
 
     @Override
     public int compareTo(Bus o) {
-        if (o.passengers != null && o.passengers.size() > this.passengers.size()) {
-            this.passengers = o.passengers;
-        }
-
         int i = this.getMovementDate().compareTo(o.getMovementDate());
         if (i == 0) return Double.compare(this.price, o.price);
-        return 0;
+        return i;
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (obj == null) return false;
+        if (obj == this) return true;
         if (!(obj instanceof Bus)) return false;
-        if (!((Bus) obj).code.equals(code)) return false;
-        if (!((Bus) obj).from.equals(from)) return false;
-        if (!((Bus) obj).to.equals(to)) return false;
-        if (((Bus) obj).soldSeat != soldSeat) return false;
-        if (!((Bus) obj).landingDate.equals(landingDate)) return false;
-        if (!((Bus) obj).movementDate.equals(movementDate)) return false;
-
-        if (((Bus) obj).passengers != null) {
-            if (((Bus) obj).passengers.size() > passengers.size()) {
-                this.passengers = ((Bus) obj).passengers;
-            }
-        }
 
-        return true;
+        return ((Bus) obj).getKey().equals(getKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return getKey().hashCode();
     }
 
     @Override
@@ -263,13 +296,16 @@ public class Bus implements Comparable<Bus>, Serializable, Savable {
 
     @Override
     public JSONObject toJson() {
-        ArrayList<Passenger> passengers = this.passengers;
-        this.passengers = null;
-        JSONObject object = new JSONObject(this);
-        object.remove("passengers");
-        object.put("movementDate", Helpers.ISO_DATE_FORMAT.format(movementDate));
-        object.put("landingDate", Helpers.ISO_DATE_FORMAT.format(landingDate));
-        this.passengers = passengers;
+        // Built field by field, since the passengers are saved with the tickets and the shared buses are not changed.
+        JSONObject object = new JSONObject();
+        object.putOpt("code", code);
+        object.put("seatNumber", seatNumber);
+        object.put("soldSeat", soldSeat);
+        object.put("price", price);
+        if (from != null) object.put("from", new JSONObject(from));
+        if (to != null) object.put("to", new JSONObject(to));
+        object.put("movementDate", DateCodec.formatIso(movementDate));
+        object.put("landingDate", DateCodec.formatIso(landingDate));
 
         return object;
     }
@@ -3,16 +3,14 @@ import net.miginfocom.swing.MigLayout;
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.Random;
 
 /**
  * The type Bus panel.
  */
 public class BusPanel extends JPanel implements Waitable {
     private Bus bus;
-    private ArrayList<JCheckBox> checkBoxSeats;
+    private final SeatMapComponent seatMap = new SeatMapComponent();
     private ArrayList<Action<Integer>> onSeatSelectedListeners;
-    private boolean isReady = false;
 
     /**
      * Instantiates a new Bus panel.
@@ -21,13 +19,24 @@ public class BusPanel extends JPanel implements Waitable {
      */
     public BusPanel(Bus bus) {
         setBorder(BorderFactory.createMatteBorder(0, 1, 0, 0, new Color(0, 0, 0, 25)));
+        setLayout(new MigLayout());
+        add(seatMap);
+
+        seatMap.setOnSeatClickedListener(this::selectSeat);
         setBus(bus);
 
+        Helpers.addOnTicketsSavedListener(tickets -> {
+            for (Ticket ticket : tickets) {
+                if (isShown(ticket)) seatMap.setOwnerColor(ticket.getSeatNumber(), getOwnerColor(ticket));
+            }
+        });
+
         Helpers.addOnTicketRemoveListener(e -> {
-            if (!e.getBus().equals(this.getBus())) return;
-            JCheckBox cb = this.checkBoxSeats.get(e.getSeatNumber() - 1);
-            cb.setEnabled(true);
-            cb.setSelected(false);
+            if (isShown(e)) seatMap.setOwnerColor(e.getSeatNumber(), null);
+        });
+
+        Helpers.addOnSeatHoldChangedListener(hold -> {
+            if (hold.getJourneyKey().equals(seatMap.getJourneyKey())) seatMap.repaintSeat(hold.getSeat());
         });
     }
 
@@ -43,43 +52,19 @@ public class BusPanel extends JPanel implements Waitable {
     /**
      * Attaches a bus to this panel.
      *
-     * @param bus New bus to attach.
+     * @param bus New bus to attach, or null to show no bus.
      */
     public void setBus(Bus bus) {
-        if (this.checkBoxSeats != null) {
-            this.checkBoxSeats.forEach(this::remove);
-        }
-
-        invalidate();
-        revalidate();
-        repaint();
-
-        if (bus == null) return;
-
         this.bus = bus;
-        this.checkBoxSeats = new ArrayList<>(bus.getSeatNumber());
-
-        for (int i = 0, limit = bus.getSeatNumber(); i < limit; i++) {
-            final int j = i + 1;
-            JCheckBox checkBox = new JCheckBox(String.valueOf(j));
-            checkBox.addActionListener(e -> {
-                if (!isReady) return;
-                selectSeat(j);
-            });
-
-            checkBoxSeats.add(checkBox);
+        if (bus == null) {
+            seatMap.setJourney(null, null);
+            return;
         }
 
-        for (Ticket ticket : Helpers.tickets) {
-            if (!ticket.getBus().equals(bus)) continue;
-            JCheckBox cb = this.checkBoxSeats.get(ticket.getSeatNumber() - 1);
-            cb.setSelected(true);
-            cb.setEnabled(false);
+        seatMap.setJourney(bus.getKey(), Helpers.tickets.getOccupancy(bus));
+        for (Ticket ticket : Helpers.tickets.getByJourney(bus)) {
+            seatMap.setOwnerColor(ticket.getSeatNumber(), getOwnerColor(ticket));
         }
-
-        initSeats();
-
-        isReady = true;
     }
 
     /**
@@ -92,21 +77,34 @@ public class BusPanel extends JPanel implements Waitable {
         onSeatSelectedListeners.add(action);
     }
 
+    private boolean isShown(Ticket ticket) {
+        return bus != null && ticket.getBus() != null && ticket.getBus().getKey().equals(seatMap.getJourneyKey());
+    }
+
+    private static Color getOwnerColor(Ticket ticket) {
+        Passenger owner = ticket.getOwner();
+        if (owner == null) return null;
+        return owner.isMale() ? Color.CYAN : Color.PINK;
+    }
+
     private void selectSeat(int index) {
-        JCheckBox checkBox = checkBoxSeats.get(index - 1);
+        SeatHold hold = Helpers.seatHolds.tryHold(bus, index);
+        if (hold == null) {
+            Helpers.message("Seat " + index + " is being sold by another agent");
+            seatMap.repaintSeat(index);
+            return;
+        }
+
         PurchaseDialog dialog = new PurchaseDialog(bus, index);
+        dialog.setSeatHold(hold);
         dialog.setModal(true);
 
         setWaiting(true);
+        seatMap.setPendingSeat(index);
         dialog.setOnResultListener(ticket -> {
-            if (ticket == null) {
-                checkBox.setSelected(false);
-            } else {
-                checkBox.setSelected(true);
-                checkBox.setEnabled(false);
-                checkBox.setBackground(ticket.getOwner().isMale() ? Color.CYAN : Color.PINK);
-            }
-
+            // The hold is sold by a purchase, otherwise the seat is released.
+            Helpers.seatHolds.release(hold);
+            seatMap.setPendingSeat(0);
             setWaiting(false);
         });
 
@@ -115,44 +113,6 @@ public class BusPanel extends JPanel implements Waitable {
         dialog.setVisible(true);
     }
 
-    private void initSeats() {
-        if (checkBoxSeats == null) {
-
-        } else {
-            setLayout(new MigLayout());
-            Random random = new Random();
-            for (int i = 0, limit = checkBoxSeats.size(), soldSeats = bus.getSoldSeat(); i < limit; i++) {
-                JCheckBox checkBox = checkBoxSeats.get(i);
-
-                if (soldSeats-- > 0) {
-                    checkBox.setEnabled(false);
-                    checkBox.setSelected(true);
-                    checkBox.setBackground(random.nextBoolean() ? Color.CYAN : Color.PINK);
-                }
-
-                switch (i % 4) {
-                    case 0:
-                    case 2:
-                        add(checkBox, "gapleft 30");
-                        break;
-
-                    case 1:
-                        add(checkBox);
-                        break;
-                    case 3:
-                        add(checkBox, "wrap");
-                        break;
-                }
-            }
-
-            revalidate();
-        }
-    }
-
-    private void initComponents() {
-        initSeats();
-    }
-
     @Override
     public void setWaiting(boolean value) {
         JRootPane pane = getRootPane();
@@ -0,0 +1,234 @@
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Thread-safe codec of the fixed layout dates used by the provider, the storage and the user interface.
+ * Dates are converted with plain calendar arithmetic in the default time zone of the application, hence no shared
+ * formatter is needed, and parsing allocates nothing but its result.
+ */
+public final class DateCodec {
+    private static final TimeZone ZONE = TimeZone.getDefault();
+    private static final long MILLIS_PER_DAY = 1000 * 60 * 60 * 24;
+
+    private DateCodec() {
+    }
+
+    /**
+     * Converts a local date and time of the default time zone to epoch milliseconds.
+     *
+     * @param year        Year.
+     * @param month       Month, starting from 1.
+     * @param day         Day of the month, starting from 1.
+     * @param hour        Hour of the day.
+     * @param minute      Minute of the hour.
+     * @param second      Second of the minute.
+     * @param millisecond Millisecond of the second.
+     * @return The epoch milliseconds.
+     */
+    public static long toMillis(int year, int month, int day, int hour, int minute, int second, int millisecond) {
+        long local = daysFromCivil(year, month, day) * MILLIS_PER_DAY +
+                ((hour * 60L + minute) * 60L + second) * 1000L + millisecond;
+
+        // The offsets a day before and after; they differ only near a transition of the zone.
+        int before = ZONE.getOffset(local - MILLIS_PER_DAY);
+        int after = ZONE.getOffset(local + MILLIS_PER_DAY);
+        if (before == after) return local - before;
+
+        // A repeated local time resolves to the standard time and a skipped one is shifted forward, like the calendar.
+        boolean isBeforeValid = ZONE.getOffset(local - before) == before;
+        boolean isAfterValid = ZONE.getOffset(local - after) == after;
+        if (isBeforeValid == isAfterValid) return local - Math.min(before, after);
+        return local - (isBeforeValid ? before : after);
+    }
+
+    /**
+     * Gets the day of a date, as a number in yyyyMMdd layout.
+     *
+     * @param date Date to get the day of.
+     * @return The day, like 20180321.
+     */
+    public static int dayOf(Date date) {
+        long millis = date.getTime();
+        return civilFromDays(Math.floorDiv(millis + ZONE.getOffset(millis), MILLIS_PER_DAY));
+    }
+
+    /**
+     * Parses a date in yyyy-MM-dd'T'HH:mm:ss.SSSZ layout, the layout of the saved buses and tickets.
+     * The milliseconds and the zone offset are optional, and the offset may be Z, +HHmm or +HH:mm.
+     *
+     * @param value Value to parse.
+     * @return The epoch milliseconds.
+     * @throws IllegalArgumentException If the value is not in the layout.
+     */
+    public static long parseIso(CharSequence value) {
+        int length = value.length();
+        if (length < 19 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T' ||
+                value.charAt(13) != ':' || value.charAt(16) != ':') {
+            throw new IllegalArgumentException("Invalid ISO date: " + value);
+        }
+
+        int year = digits(value, 0, 4), month = digits(value, 5, 2), day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2), minute = digits(value, 14, 2), second = digits(value, 17, 2);
+        int position = 19, millisecond = 0;
+        if (position < length && value.charAt(position) == '.') {
+            millisecond = digits(value, 20, 3);
+            position = 23;
+        }
+
+        if (position == length) return toMillis(year, month, day, hour, minute, second, millisecond);
+
+        long local = daysFromCivil(year, month, day) * MILLIS_PER_DAY +
+                ((hour * 60L + minute) * 60L + second) * 1000L + millisecond;
+
+        char sign = value.charAt(position);
+        if (sign == 'Z') return local;
+        if (sign != '+' && sign != '-' || length < position + 5) {
+            throw new IllegalArgumentException("Invalid ISO date: " + value);
+        }
+
+        int offsetHours = digits(value, position + 1, 2);
+        int offsetMinutes = digits(value, value.charAt(position + 3) == ':' ? position + 4 : position + 3, 2);
+        long offset = (offsetHours * 60L + offsetMinutes) * 60L * 1000L;
+        return sign == '+' ? local - offset : local + offset;
+    }
+
+    /**
+     * Formats a date in yyyy-MM-dd'T'HH:mm:ss.SSSZ layout, the layout of the saved buses and tickets.
+     *
+     * @param date Date to format.
+     * @return The formatted date, like 2018-03-21T14:05:00.000+0300.
+     */
+    public static String formatIso(Date date) {
+        return appendIso(new StringBuilder(28), date).toString();
+    }
+
+    /**
+     * Appends a date in yyyy-MM-dd'T'HH:mm:ss.SSSZ layout to a builder.
+     *
+     * @param builder Builder to append to.
+     * @param date    Date to append.
+     * @return The builder.
+     */
+    public static StringBuilder appendIso(StringBuilder builder, Date date) {
+        long millis = date.getTime();
+        int offset = ZONE.getOffset(millis);
+        long local = millis + offset;
+        int day = civilFromDays(Math.floorDiv(local, MILLIS_PER_DAY));
+        int time = (int) Math.floorMod(local, MILLIS_PER_DAY);
+
+        pad(builder, day / 10000, 4).append('-');
+        pad(builder, day / 100 % 100, 2).append('-');
+        pad(builder, day % 100, 2).append('T');
+        appendTime(builder, time).append('.');
+        pad(builder, time % 1000, 3);
+
+        int offsetMinutes = offset / 60000;
+        builder.append(offsetMinutes < 0 ? '-' : '+');
+        offsetMinutes = Math.abs(offsetMinutes);
+        pad(builder, offsetMinutes / 60, 2);
+        return pad(builder, offsetMinutes % 60, 2);
+    }
+
+    /**
+     * Formats a date in HH:mm:ss dd.MM.yyyy layout.
+     *
+     * @param date Date to format.
+     * @return The formatted date, like 14:05:00 21.03.2018.
+     */
+    public static String formatTimeDate(Date date) {
+        long local = toLocal(date);
+        StringBuilder builder = new StringBuilder(19);
+        appendTime(builder, (int) Math.floorMod(local, MILLIS_PER_DAY)).append(' ');
+        return appendDate(builder, civilFromDays(Math.floorDiv(local, MILLIS_PER_DAY))).toString();
+    }
+
+    /**
+     * Formats a date in dd.MM.yyyy layout.
+     *
+     * @param date Date to format.
+     * @return The formatted date, like 21.03.2018.
+     */
+    public static String formatDate(Date date) {
+        return appendDate(new StringBuilder(10), civilFromDays(Math.floorDiv(toLocal(date), MILLIS_PER_DAY))).toString();
+    }
+
+    /**
+     * Formats a date in dd.MM.yyyy HH:mm layout.
+     *
+     * @param date Date to format.
+     * @return The formatted date, like 21.03.2018 14:05.
+     */
+    public static String formatDateMinute(Date date) {
+        long local = toLocal(date);
+        int time = (int) Math.floorMod(local, MILLIS_PER_DAY) / 60000;
+        StringBuilder builder = new StringBuilder(16);
+        appendDate(builder, civilFromDays(Math.floorDiv(local, MILLIS_PER_DAY))).append(' ');
+        pad(builder, time / 60, 2).append(':');
+        return pad(builder, time % 60, 2).toString();
+    }
+
+    private static long toLocal(Date date) {
+        long millis = date.getTime();
+        return millis + ZONE.getOffset(millis);
+    }
+
+    private static StringBuilder appendDate(StringBuilder builder, int day) {
+        pad(builder, day % 100, 2).append('.');
+        pad(builder, day / 100 % 100, 2).append('.');
+        return pad(builder, day / 10000, 4);
+    }
+
+    private static StringBuilder appendTime(StringBuilder builder, int millisOfDay) {
+        int seconds = millisOfDay / 1000;
+        pad(builder, seconds / 3600, 2).append(':');
+        pad(builder, seconds / 60 % 60, 2).append(':');
+        return pad(builder, seconds % 60, 2);
+    }
+
+    private static StringBuilder pad(StringBuilder builder, int value, int width) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) builder.append('0');
+        }
+
+        return builder.append(value);
+    }
+
+    private static int digits(CharSequence value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') throw new IllegalArgumentException("Invalid digit in date: " + value);
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the number of the days since 1970-01-01 of a date of the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        if (month <= 2) year--;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Gets the date, in yyyyMMdd layout, of a number of the days since 1970-01-01.
+     */
+    private static int civilFromDays(long days) {
+        days += 719468;
+        long era = (days >= 0 ? days : days - 146096) / 146097;
+        int dayOfEra = (int) (days - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) year * 10000 + month * 100 + day;
+    }
+}
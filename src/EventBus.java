@@ -0,0 +1,338 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Typed publish and subscribe of the events of the system.
+ * Each subscriber is called through an executor of its choice, like the event dispatch thread for the user interface.
+ * Publishing only queues the deliveries for the executors, hence a slow subscriber does not stall the publisher.
+ * <p>
+ * The deliveries of an executor are run in the order of publishing, by a single task at a time. The consecutive events
+ * of a topic which are queued together form a burst, and a subscriber gets a burst at once, either one by one or, if
+ * it is coalescing, as a single list.
+ * <p>
+ * The dispatch of each topic is measured, see {@link Topic#getMetrics()}, and the deliveries slower than a threshold
+ * are counted, so that a slow subscriber shows up in the metrics.
+ */
+public class EventBus {
+    /**
+     * Executor which calls the subscribers on the event dispatch thread.
+     */
+    public static final Executor EVENT_THREAD = SwingUtilities::invokeLater;
+    /**
+     * Executor which calls the subscribers on the publishing thread, or on the thread already delivering the events
+     * published concurrently.
+     */
+    public static final Executor DIRECT = Runnable::run;
+
+    private final ConcurrentHashMap<Topic<?>, CopyOnWriteArrayList<Subscriber<?>>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Executor, Dispatcher> dispatchers = new ConcurrentHashMap<>();
+    private final long slowDeliveryNanos;
+
+    /**
+     * Instantiates a new Event bus.
+     *
+     * @param slowDeliveryMillis Duration of a delivery which is counted as slow, in milliseconds.
+     */
+    public EventBus(long slowDeliveryMillis) {
+        this.slowDeliveryNanos = slowDeliveryMillis * 1000000L;
+    }
+
+    /**
+     * Subscribes to the events of a topic, one by one.
+     *
+     * @param topic    Topic of the events.
+     * @param executor Executor to call the action through.
+     * @param action   An action with the event.
+     * @param <T>      Type of the events.
+     * @return The subscription, to cancel later.
+     */
+    public <T> Subscription subscribe(Topic<T> topic, Executor executor, Action<T> action) {
+        return add(new Subscriber<>(topic, executor, events -> {
+            for (T event : events) action.call(event);
+        }));
+    }
+
+    /**
+     * Subscribes to the events of a topic, receiving a burst of the events as a single list.
+     *
+     * @param topic    Topic of the events.
+     * @param executor Executor to call the action through.
+     * @param action   An action with the events of a burst, in the order of publishing.
+     * @param <T>      Type of the events.
+     * @return The subscription, to cancel later.
+     */
+    public <T> Subscription subscribeCoalescing(Topic<T> topic, Executor executor, Action<List<T>> action) {
+        return add(new Subscriber<>(topic, executor, action));
+    }
+
+    /**
+     * Publishes an event to the subscribers of its topic.
+     *
+     * @param topic Topic of the event.
+     * @param event The event.
+     * @param <T>   Type of the event.
+     */
+    public <T> void publish(Topic<T> topic, T event) {
+        topic.metrics.published.increment();
+
+        CopyOnWriteArrayList<Subscriber<?>> list = subscribers.get(topic);
+        if (list == null) return;
+
+        long time = System.nanoTime();
+        for (Subscriber<?> subscriber : list) {
+            dispatchers.computeIfAbsent(subscriber.executor, Dispatcher::new)
+                    .queue(new Delivery(subscriber, event, time));
+        }
+    }
+
+    private <T> Subscription add(Subscriber<T> subscriber) {
+        subscribers.computeIfAbsent(subscriber.topic, topic -> new CopyOnWriteArrayList<>()).add(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Subscription to a topic.
+     */
+    public interface Subscription {
+        /**
+         * Cancels the subscription, removing the subscriber from its topic. The events queued already are not delivered
+         * anymore.
+         */
+        void cancel();
+    }
+
+    /**
+     * Topic of the events of a type.
+     *
+     * @param <T> Type of the events.
+     */
+    public static final class Topic<T> {
+        private final String name;
+        private final Metrics metrics = new Metrics();
+
+        /**
+         * Instantiates a new Topic.
+         *
+         * @param name Name of the topic.
+         */
+        public Topic(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets the name of the topic.
+         *
+         * @return The name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the dispatch metrics of the topic.
+         *
+         * @return The metrics.
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Dispatch metrics of a topic. The latency of an event is the time from publishing to the start of its delivery to a
+     * subscriber.
+     */
+    public static final class Metrics {
+        private final LongAdder published = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder totalLatencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final AtomicLong maxDeliveryNanos = new AtomicLong();
+        private final LongAdder slowDeliveries = new LongAdder();
+
+        /**
+         * Gets the number of the published events.
+         *
+         * @return The number of the events.
+         */
+        public long getPublishedCount() {
+            return published.sum();
+        }
+
+        /**
+         * Gets the number of the deliveries of the events, counting each subscriber.
+         *
+         * @return The number of the deliveries.
+         */
+        public long getDeliveredCount() {
+            return delivered.sum();
+        }
+
+        /**
+         * Gets the average latency of the deliveries.
+         *
+         * @return The latency in nanoseconds.
+         */
+        public long getAverageLatencyNanos() {
+            long count = delivered.sum();
+            return count == 0 ? 0 : totalLatencyNanos.sum() / count;
+        }
+
+        /**
+         * Gets the maximum latency of the deliveries.
+         *
+         * @return The latency in nanoseconds.
+         */
+        public long getMaxLatencyNanos() {
+            return maxLatencyNanos.get();
+        }
+
+        /**
+         * Gets the maximum time a subscriber took to handle a burst.
+         *
+         * @return The duration in nanoseconds.
+         */
+        public long getMaxDeliveryNanos() {
+            return maxDeliveryNanos.get();
+        }
+
+        /**
+         * Gets the number of the bursts which a subscriber took longer than the slow delivery duration of the bus to
+         * handle.
+         *
+         * @return The number of the slow deliveries.
+         */
+        public long getSlowDeliveryCount() {
+            return slowDeliveries.sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("published: %d, delivered: %d, latency avg: %.2f ms, max: %.2f ms, slowest delivery: %.2f ms, slow: %d",
+                    getPublishedCount(), getDeliveredCount(), getAverageLatencyNanos() / 1e6, getMaxLatencyNanos() / 1e6,
+                    getMaxDeliveryNanos() / 1e6, getSlowDeliveryCount());
+        }
+
+        private void recordLatency(long nanos) {
+            delivered.increment();
+            totalLatencyNanos.add(nanos);
+            maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    private class Subscriber<T> implements Subscription {
+        private final Topic<T> topic;
+        private final Executor executor;
+        private final Action<List<T>> action;
+        private volatile boolean cancelled;
+
+        Subscriber(Topic<T> topic, Executor executor, Action<List<T>> action) {
+            this.topic = topic;
+            this.executor = executor;
+            this.action = action;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            CopyOnWriteArrayList<Subscriber<?>> list = subscribers.get(topic);
+            if (list != null) list.remove(this);
+        }
+    }
+
+    private static class Delivery {
+        private final Subscriber<?> subscriber;
+        private final Object event;
+        private final long publishTime;
+
+        Delivery(Subscriber<?> subscriber, Object event, long publishTime) {
+            this.subscriber = subscriber;
+            this.event = event;
+            this.publishTime = publishTime;
+        }
+    }
+
+    /**
+     * Queue of the deliveries through an executor, drained by a single task at a time.
+     */
+    private class Dispatcher implements Runnable {
+        private final Executor executor;
+        private final ConcurrentLinkedQueue<Delivery> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Dispatcher(Executor executor) {
+            this.executor = executor;
+        }
+
+        void queue(Delivery delivery) {
+            queue.add(delivery);
+            if (scheduled.compareAndSet(false, true)) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            do {
+                ArrayList<Delivery> burst = new ArrayList<>();
+                for (Delivery delivery; (delivery = queue.poll()) != null; ) burst.add(delivery);
+
+                // The deliveries are split into the runs of the same topic, to keep the order between the topics.
+                for (int start = 0, end; start < burst.size(); start = end) {
+                    Topic<?> topic = burst.get(start).subscriber.topic;
+                    end = start + 1;
+                    while (end < burst.size() && burst.get(end).subscriber.topic == topic) end++;
+
+                    deliver(burst.subList(start, end));
+                }
+
+                scheduled.set(false);
+            } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+
+        private void deliver(List<Delivery> run) {
+            ArrayList<Subscriber<?>> order = new ArrayList<>();
+            for (Delivery delivery : run) {
+                if (!order.contains(delivery.subscriber)) order.add(delivery.subscriber);
+            }
+
+            for (Subscriber<?> subscriber : order) {
+                if (!subscriber.cancelled) deliver(subscriber, run);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> void deliver(Subscriber<T> subscriber, List<Delivery> run) {
+            Metrics metrics = subscriber.topic.metrics;
+            ArrayList<T> events = new ArrayList<>();
+            long start = System.nanoTime();
+            for (Delivery delivery : run) {
+                if (delivery.subscriber != subscriber) continue;
+
+                events.add((T) delivery.event);
+                metrics.recordLatency(start - delivery.publishTime);
+            }
+
+            try {
+                subscriber.action.call(events);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            long duration = System.nanoTime() - start;
+            metrics.maxDeliveryNanos.accumulateAndGet(duration, Math::max);
+            if (duration > slowDeliveryNanos) metrics.slowDeliveries.increment();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer of many short lived timeouts, like the seat holds.
+ * The timeouts are kept in a wheel of buckets, one bucket per tick, and a timeout further than a turn of the wheel
+ * counts the remaining turns. Hence, scheduling and cancelling a timeout take a constant time regardless of the
+ * number of the timeouts, and a tick only visits the timeouts of its bucket. A timeout runs at most a tick late.
+ * <p>
+ * The timeouts run on the single thread of the timer, thus they shall be short.
+ */
+public class HashedWheelTimer {
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startTime = System.nanoTime();
+    private volatile boolean stopped;
+    private long tick;
+
+    /**
+     * Instantiates a new Hashed wheel timer, and starts its thread.
+     *
+     * @param name       Name of the thread.
+     * @param tickMillis Duration of a tick, in milliseconds.
+     * @param wheelSize  Number of the buckets, rounded up to a power of two.
+     */
+    public HashedWheelTimer(String name, long tickMillis, int wheelSize) {
+        this.tickNanos = tickMillis * 1000000L;
+        this.wheel = new Bucket[Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1];
+        this.mask = wheel.length - 1;
+        for (int i = 0; i < wheel.length; i++) wheel[i] = new Bucket();
+
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules a task to run once, after a delay.
+     *
+     * @param task        Task to run.
+     * @param delayMillis Delay, in milliseconds.
+     * @return The timeout, to cancel.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + delayMillis * 1000000L);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer. The timeouts which have not run yet are dropped.
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!stopped) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1000000L, (int) (sleepNanos % 1000000L));
+                } catch (InterruptedException e) {
+                    continue;
+                }
+
+                continue;
+            }
+
+            transferScheduled();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) return;
+            if (timeout.state.get() == Timeout.CANCELLED) continue;
+
+            long ticks = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Timeout scheduled on the timer.
+     */
+    public static class Timeout {
+        private static final int WAITING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long remainingRounds;
+        private Timeout previous, next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout, if it has not run yet.
+         *
+         * @return True if cancelled, false if it has run or been cancelled already.
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+    }
+
+    /**
+     * Timeouts of a tick, as a linked list which is only touched by the thread of the timer.
+     */
+    private static class Bucket {
+        private Timeout head, tail;
+
+        void add(Timeout timeout) {
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) head = timeout;
+            else tail.next = timeout;
+            tail = timeout;
+        }
+
+        void expire(long deadline) {
+            for (Timeout timeout = head; timeout != null; ) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                        try {
+                            timeout.task.run();
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous == null) head = timeout.next;
+            else timeout.previous.next = timeout.next;
+            if (timeout.next == null) tail = timeout.previous;
+            else timeout.next.previous = timeout.previous;
+            timeout.previous = timeout.next = null;
+        }
+    }
+}
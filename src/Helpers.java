@@ -2,83 +2,166 @@ import org.codehaus.jackson.map.ObjectMapper;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * The type Helpers.
  */
 public class Helpers {
     /**
-     * ISO Date Format, for parsing and converting to string.
-     * yyyy-MM-dd'T'HH:mm:ss.SSSZ
+     * Root folder path of the application.
+     * This is used for storing data.
+     * Normally, set as ~/BusTicketing/, and overridden by the busticketing.root system property, e.g. to run against a
+     * generated data set.
      */
-    public static final SimpleDateFormat ISO_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    public static final String ROOT_FOLDER_PATH = rootFolderPath(System.getProperty("busticketing.root"));
 
     /**
-     * Normal date format.
-     * HH:mm:ss dd.MM.yyyy
+     * JSON Mapper for Java language.
+     * By using this, we can create/convert from a JSON object to a Java class.
      */
-    public static final SimpleDateFormat NORMAL_DATE_FORMAT = new SimpleDateFormat("HH:mm:ss dd.MM.yyyy");
+    public static final ObjectMapper JSON_MAPPER = new ObjectMapper();
 
     /**
-     * Root folder path of the application.
-     * This is used for storing data.
-     * Normally, set as ~/BusTicketing/
+     * Journal of the ticket sales and cancellations, stored in the root folder.
      */
-    public static final String ROOT_FOLDER_PATH = System.getProperty("user.home") + File.separator + "BusTicketing" + File.separator;
+    public static final TicketJournal journal = new TicketJournal(Paths.get(ROOT_FOLDER_PATH, "tickets.journal"));
 
     /**
-     * JSON Mapper for Java language.
-     * By using this, we can create/convert from a JSON object to a Java class.
+     * Write-behind persistence of the tickets, writing to the journal in the background.
      */
-    public static final ObjectMapper JSON_MAPPER = new ObjectMapper();
-    private static final SimpleDateFormat BOARDING_DATE_FORMAT = new SimpleDateFormat("dd.MM.yyyy");
-    private static final SimpleDateFormat MOVEMENT_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+    public static final PersistenceService persistence = new PersistenceService(journal, 10000);
+
+    /**
+     * Shared client of the ticket provider.
+     * Configured by the busticketing.provider (base URL) and busticketing.provider.connections system properties.
+     */
+    public static final ProviderClient provider = new ProviderClient(
+            System.getProperty("busticketing.provider", "https://www.metroturizm.com.tr/DataProvider/"),
+            Integer.getInteger("busticketing.provider.connections", 8),
+            5000,
+            10000
+    );
+
+    /**
+     * Cache of the journey search results.
+     * Configured by the busticketing.journeyCache.ttl, .stale (in milliseconds) and .size system properties.
+     */
+    public static final JourneyCache journeyCache = new JourneyCache(
+            Long.getLong("busticketing.journeyCache.ttl", 1000 * 60 * 2),
+            Long.getLong("busticketing.journeyCache.stale", 1000 * 60 * 10),
+            Integer.getInteger("busticketing.journeyCache.size", 256)
+    );
+
+    /**
+     * Journey requests in flight, so the concurrent searches of the same query share a single provider request.
+     */
+    private static final SingleFlight<JourneyQuery, ArrayList<Bus>> journeyFlights = new SingleFlight<>();
+
+    /**
+     * Prefetcher of the neighbouring days of the searched journeys.
+     * Configured by the busticketing.prefetch.days system property, the number of the days before and after.
+     */
+    private static final JourneyPrefetcher prefetcher = new JourneyPrefetcher(
+            journeyCache,
+            Helpers::fetchJourneyList,
+            Integer.getInteger("busticketing.prefetch.days", 1)
+    );
+    /**
+     * Bus of the events of the system.
+     * Configured by the busticketing.events.slow system property, the duration of a delivery counted as slow, in
+     * milliseconds. The metrics of its topics are summarized by {@link #getEventSummary()}.
+     */
+    public static final EventBus events = new EventBus(Long.getLong("busticketing.events.slow", 50));
+    /**
+     * Topic of the added tickets, with all the tickets of an addition, including the bulk additions.
+     */
+    public static final EventBus.Topic<List<Ticket>> TICKETS_SAVED = new EventBus.Topic<>("tickets-saved");
+    /**
+     * Topic of the removed tickets.
+     */
+    public static final EventBus.Topic<Ticket> TICKET_REMOVED = new EventBus.Topic<>("ticket-removed");
+    /**
+     * Topic of the location condition, true when selecting the same locations for "FROM" and "TO" is not allowed.
+     */
+    public static final EventBus.Topic<Boolean> LOCATION_CONDITION_CHANGED = new EventBus.Topic<>("location-condition-changed");
+    /**
+     * Topic of the seat holds, published when a seat is held, released or expired.
+     */
+    public static final EventBus.Topic<SeatHold> SEAT_HOLD_CHANGED = new EventBus.Topic<>("seat-hold-changed");
+    private static final long JOURNAL_COMPACTION_PERIOD = 1000 * 60 * 10;
+    private static final long SNAPSHOT_PERIOD = 1000 * 60 * 30;
+    private static final Path SNAPSHOT_PATH = Paths.get(ROOT_FOLDER_PATH, "tickets.snapshot");
     /**
      * General message handler. Any event may execute/send a message/notification to the user through this, by calling
      * {@link Helpers#message(String)} function. This shall not be used externally, except for handler assignment.
      */
     public static Action<String> messageHandler;
     /**
-     * List of registered passengers.
+     * Registry of the passengers, by their ids.
      */
-    public static ArrayList<Passenger> passengers;
+    public static final PassengerRegistry passengers = new PassengerRegistry();
     /**
-     * List of buses used for direct accessibility.
+     * Buses by their journey keys, used for direct accessibility.
      */
-    public static ArrayList<Bus> buses;
+    public static ConcurrentHashMap<JourneyKey, Bus> buses;
     /**
      * List of baggages for direct accessibility.
      */
     public static ArrayList<Baggage> baggages;
     /**
-     * List of bought tickets.
+     * Store of bought tickets.
+     */
+    public static final TicketStore tickets = new TicketStore();
+    /**
+     * Holds of the seats whose sales are in progress.
+     * Configured by the busticketing.seatHoldTtl system property, the duration of a hold, in milliseconds.
+     */
+    public static final SeatHoldService seatHolds = new SeatHoldService(
+            tickets,
+            Long.getLong("busticketing.seatHoldTtl", 1000 * 60 * 5),
+            hold -> events.publish(SEAT_HOLD_CHANGED, hold)
+    );
+    /**
+     * Booking operations used by the user interface.
+     * If the busticketing.server system property (base URL of a booking server) is set, the operations run on that
+     * server, otherwise on the store of this process.
      */
-    public static ArrayList<Ticket> tickets;
+    public static final BookingService booking = createBookingService(System.getProperty("busticketing.server"));
     private static boolean onlyFromDifferentLocations = false;
-    private static ArrayList<Action<Ticket>> onTicketSavedListeners;
-    private static ArrayList<Action<Ticket>> onTicketRemovedListeners;
-    private static ArrayList<Action<Boolean>> onLocationConditionChangedListeners;
+    private static boolean isSnapshotWritable = false;
+    private static PreSavedLoader loader;
+    private static String loadSummary;
+    private static final CompletableFuture<Boolean> seatsLoaded = new CompletableFuture<>();
+    private static final CompletableFuture<Boolean> ticketsLoaded = new CompletableFuture<>();
+    private static final int LOAD_PROGRESS_INTERVAL = 10000;
 
     /**
      * Adds a location condition change listener, which will be fired when selecting between the same locations
-     * for "FROM" and "TO" are allowed.
+     * for "FROM" and "TO" are allowed. The listener is called on the event dispatch thread.
      *
      * @param action An action, has state boolean.
      */
     public static void addOnLocationConditionChangedListener(Action<Boolean> action) {
-        if (onLocationConditionChangedListeners == null) onLocationConditionChangedListeners = new ArrayList<>();
-        onLocationConditionChangedListeners.add(action);
+        events.subscribe(LOCATION_CONDITION_CHANGED, EventBus.EVENT_THREAD, action);
     }
 
     /**
@@ -89,46 +172,85 @@ public class Helpers {
      */
     public static void setLocationCondition(boolean value) {
         onlyFromDifferentLocations = value;
-        if (onLocationConditionChangedListeners != null)
-            onLocationConditionChangedListeners.forEach(a -> a.call(value));
+        events.publish(LOCATION_CONDITION_CHANGED, value);
     }
 
     /**
-     * Adds a ticket saved listener.
+     * Adds a listener of the added tickets, which is called with all the tickets added since its last call.
+     * This is called for the tickets added by a purchase, and for the tickets added in bulk. The listener is called on
+     * the event dispatch thread.
      *
-     * @param action An action with Ticket parameter.
+     * @param action An action with the list of the added tickets.
      */
-    public static void addOnTicketSavedListener(Action<Ticket> action) {
-        if (onTicketSavedListeners == null) onTicketSavedListeners = new ArrayList<>();
-        onTicketSavedListeners.add(action);
+    public static void addOnTicketsSavedListener(Action<List<Ticket>> action) {
+        events.subscribeCoalescing(TICKETS_SAVED, EventBus.EVENT_THREAD, batches -> {
+            if (batches.size() == 1) {
+                action.call(batches.get(0));
+                return;
+            }
+
+            ArrayList<Ticket> added = new ArrayList<>();
+            for (List<Ticket> batch : batches) added.addAll(batch);
+            action.call(added);
+        });
     }
 
     /**
-     * Adds a ticket removed listener.
+     * Adds a listener of the seat holds, which is called when a seat is held, released or expired. The listener is
+     * called on the event dispatch thread.
+     *
+     * @param action An action with the seat hold.
+     */
+    public static void addOnSeatHoldChangedListener(Action<SeatHold> action) {
+        events.subscribe(SEAT_HOLD_CHANGED, EventBus.EVENT_THREAD, action);
+    }
+
+    /**
+     * Adds a ticket removed listener. The listener is called on the event dispatch thread.
      *
      * @param action An action with Ticket parameter.
      */
     public static void addOnTicketRemoveListener(Action<Ticket> action) {
-        if (onTicketRemovedListeners == null) onTicketRemovedListeners = new ArrayList<>();
-        onTicketRemovedListeners.add(action);
+        events.subscribe(TICKET_REMOVED, EventBus.EVENT_THREAD, action);
     }
 
     /**
      * Removes a ticket from the system.
-     * And also removes the related file, if exists.
      *
      * @param ticket Ticket to remove.
+     * @return True if removed, false if there is no such ticket.
      */
-    public static void removeTicket(Ticket ticket) {
-        boolean value = Helpers.tickets.remove(ticket);
-        if (value) {
-            File ticketFile = new File(Helpers.ROOT_FOLDER_PATH + "ticket-" + ticket.getId() + ".ticket");
-            if (ticketFile.exists()) {
-                ticketFile.delete();
-            }
-            message("Ticket " + ticket.toString() + " has been removed");
-            if (onTicketRemovedListeners != null) onTicketRemovedListeners.forEach(it -> it.call(ticket));
-        }
+    public static boolean removeTicket(Ticket ticket) {
+        if (tickets.remove(ticket) == null) return false;
+
+        message("Ticket " + ticket.toString() + " has been removed");
+        events.publish(TICKET_REMOVED, ticket);
+        return true;
+    }
+
+    /**
+     * Checks whether the bookings run on a booking server, rather than on the store of this process.
+     *
+     * @return True if a booking server is used.
+     */
+    public static boolean isRemoteBooking() {
+        return booking instanceof RemoteBookingService;
+    }
+
+    private static String rootFolderPath(String root) {
+        if (root == null || root.isEmpty()) root = System.getProperty("user.home") + File.separator + "BusTicketing";
+        return root.endsWith(File.separator) ? root : root + File.separator;
+    }
+
+    private static BookingService createBookingService(String serverUrl) {
+        if (serverUrl == null || serverUrl.isEmpty()) return new LocalBookingService();
+
+        return new RemoteBookingService(new ProviderClient(
+                serverUrl,
+                Integer.getInteger("busticketing.server.connections", 8),
+                5000,
+                10000
+        ));
     }
 
     private static String tryLoadPreSavedLocations() {
@@ -160,21 +282,16 @@ public class Helpers {
             return;
         }
 
-        new Thread(() -> {
-            try {
-                Document document = Jsoup
-                        .connect("https://www.metroturizm.com.tr/DataProvider/GetTerminals")
-                        .timeout(5000)
-                        .userAgent("Mozilla")
-                        .post();
-
-                String text = document.body().text();
-                trySaveLocationsText(text);
-                parseLocations(text, onCompleted);
-            } catch (IOException e) {
-                e.printStackTrace();
+        provider.post("GetTerminals", null).whenComplete((bytes, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                return;
             }
-        }).start();
+
+            String text = Jsoup.parse(new String(bytes, StandardCharsets.UTF_8)).body().text();
+            trySaveLocationsText(text);
+            parseLocations(text, onCompleted);
+        });
     }
 
     private static void trySaveLocationsText(String text) {
@@ -194,7 +311,7 @@ public class Helpers {
         JSONArray array = response.getJSONArray("rc1");
         for (int i = 0, limit = array.length(); i < limit; i++) {
             JSONObject o = array.getJSONObject(i);
-            Location location = new Location(o.getString("BRANCHNAME"), o.getString("BRANCHCODE"));
+            Location location = Location.intern(new Location(o.getString("BRANCHNAME"), o.getString("BRANCHCODE")));
             locations.add(location);
         }
 
@@ -202,100 +319,124 @@ public class Helpers {
     }
 
     /**
-     * Adds a new ticket into the system.
+     * Adds a new ticket into the system, claiming its seat.
      *
      * @param ticket Ticket to add.
+     * @return True if added, false if its seat has been sold already or the ticket exists.
      */
-    public static void addTicket(Ticket ticket) {
-        tickets.add(ticket);
-        if (onTicketSavedListeners != null) onTicketSavedListeners.forEach(it -> it.call(ticket));
+    public static boolean addTicket(Ticket ticket) {
+        return addTicket(ticket, null);
+    }
+
+    /**
+     * Adds a new ticket into the system, selling its seat held for it, or claiming its seat if the hold has expired.
+     *
+     * @param ticket Ticket to add.
+     * @param hold   Hold of the seat of the ticket, or null if it is not held.
+     * @return True if added, false if its seat has been taken or the ticket exists.
+     */
+    public static boolean addTicket(Ticket ticket, SeatHold hold) {
+        if (!tickets.add(ticket, hold)) return false;
+        if (ticket.getBus() != null) passengers.registerAll(ticket.getBus().getPassengers());
+        events.publish(TICKETS_SAVED, Collections.singletonList(ticket));
+
         message("New ticket has been added");
+        return true;
     }
 
     /**
-     * Gets the journey list asynchronously. Thus, an action should be used.
+     * Adds new tickets into the system in bulk. This may be called from any thread.
+     * The listeners of the added tickets are called once, with all the tickets added.
      *
-     * @param ticket      Ticket to get journey list for. (At this point, not all ticket information are filled)
-     * @param onCompleted An action to handle list, with an array list of buses
+     * @param batch Tickets to add.
+     * @return The tickets added, excluding the ones already in the system and the ones whose seats are sold already.
      */
-    public static void getJourneyList(Ticket ticket, Action<ArrayList<Bus>> onCompleted) {
-        new Thread(() -> {
-            try {
-                Document document = Jsoup.connect("https://www.metroturizm.com.tr/DataProvider/GetJourneyList")
-                        .timeout(10000)
-                        .userAgent("Mozilla")
-                        .data("boarding", ticket.getFrom().getHtmlValue())
-                        .data("landing", ticket.getTo().getHtmlValue())
-                        .data("boardingDate", BOARDING_DATE_FORMAT.format(ticket.getDate()))
-                        .data("returnDate", BOARDING_DATE_FORMAT.format(new Date(ticket.getDate().getTime() + 1000 * 60 * 60 * 24)))
-                        .data("isBothWay", "false")
-                        .post();
-
-                JSONObject response = new JSONObject(document.body().text());
-                JSONObject bothWay = response.getJSONObject("bothWay");
-                String connectedCity = response.getString("connectedCity");
-                String connectedJourneyList = response.optString("connectedJourneyList");
-                String depSuggestion = response.optString("depSuggestion");
-                JSONObject oneWay = response.getJSONObject("oneWay");
-                JSONArray rc1 = oneWay.getJSONArray("rc1");
-
-                ArrayList<Bus> buses = new ArrayList<>();
-                Date now = new Date();
-                for (int i = buses.size() - 1; i >= 0; i--) {
-                    Bus bus = buses.get(i);
-                    if (bus.getLandingDate().before(now) || bus.getRemainingSeatNumber() == 0) {
-                        buses.remove(i);
-                        continue;
-                    }
-                }
+    public static ArrayList<Ticket> addTickets(List<Ticket> batch) {
+        ArrayList<Ticket> added = new ArrayList<>(batch.size());
+        IdentityHashMap<Bus, Boolean> registeredBuses = new IdentityHashMap<>();
+        for (Ticket ticket : batch) {
+            if (!tickets.add(ticket)) continue;
+
+            added.add(ticket);
+            Bus bus = ticket.getBus();
+            if (bus != null && registeredBuses.put(bus, Boolean.TRUE) == null) passengers.registerAll(bus.getPassengers());
+        }
 
-                for (int i = 0, limit = rc1.length(); i < limit; i++) {
-                    JSONObject object = rc1.getJSONObject(i);
-                    Bus bus = new Bus(
-                            object.optString("PLAKA", object.getString("UNIQUE_KEY")),
-                            object.getInt("TOTALSEAT"),
-                            ticket.getFrom(),
-                            ticket.getTo()
-                    );
+        if (!added.isEmpty()) events.publish(TICKETS_SAVED, added);
+        return added;
+    }
 
-                    String time = object.getString("BINIS_SAATI");
+    /**
+     * Searches the journeys of a query which have remaining seats, through the provider.
+     * Recent results are served from the journey cache, and a stale result is served while it is being refreshed in
+     * the background. Then, the neighbouring days of the same route are prefetched into the cache.
+     *
+     * @param query Query of the journeys.
+     * @return A future, completed with the buses of the journeys.
+     */
+    static CompletableFuture<ArrayList<Bus>> searchJourneys(JourneyQuery query) {
+        JourneyCache.Entry entry = journeyCache.get(query);
+        if (entry != null) {
+            if (entry.isStale() && journeyCache.tryStartRevalidation(query)) {
+                fetchJourneyList(query).whenComplete((buses, error) -> {
+                    if (error != null) {
+                        journeyCache.cancelRevalidation(query);
+                        error.printStackTrace();
+                        return;
+                    }
 
-                    String dateStr = object.optString("SEFERDATE");
-                    if (dateStr == null) dateStr = object.optString("B_DA_SEFERDATE");
+                    journeyCache.put(query, buses);
+                });
+            }
 
-                    Date date = MOVEMENT_DATE_FORMAT.parse(dateStr);
-                    Calendar calendar = Calendar.getInstance();
-                    calendar.setTime(date);
-                    calendar.set(Calendar.HOUR_OF_DAY, Integer.parseInt(time.substring(0, 2)));
-                    calendar.set(Calendar.MINUTE, Integer.parseInt(time.substring(3)));
+            prefetcher.prefetch(query);
+            return CompletableFuture.completedFuture(getAvailableBuses(entry.getBuses()));
+        }
+
+        prefetcher.userSearchStarted();
+        return fetchJourneyList(query).whenComplete((buses, error) -> {
+            prefetcher.userSearchFinished();
+            if (error != null) return;
 
-                    bus.setMovementDate(calendar.getTime());
-                    bus.setSoldSeat(object.getInt("GEN_SOLDSEAT"));
-                    bus.setPrice(object.getDouble("GEN_WEBPRICE"));
+            journeyCache.put(query, buses);
+            prefetcher.prefetch(query);
+        }).thenApply(Helpers::getAvailableBuses);
+    }
 
-                    dateStr = object.optString("INIS_ANAYOLDATE");
-                    if (dateStr != null) dateStr = object.optString("INIS_ARAYOLDATE");
-                    date = MOVEMENT_DATE_FORMAT.parse(dateStr);
-                    time = object.getString("INIS_SAATI");
+    private static ArrayList<Bus> getAvailableBuses(ArrayList<Bus> buses) {
+        ArrayList<Bus> available = new ArrayList<>(buses.size());
+        for (Bus bus : buses) {
+            if (bus.getRemainingSeatNumber() > 0) available.add(bus);
+        }
 
-                    calendar.setTime(date);
-                    calendar.set(Calendar.HOUR_OF_DAY, Integer.parseInt(time.substring(0, 2)));
-                    calendar.set(Calendar.MINUTE, Integer.parseInt(time.substring(3)));
+        return available;
+    }
 
-                    bus.setLandingDate(calendar.getTime());
+    private static CompletableFuture<ArrayList<Bus>> fetchJourneyList(JourneyQuery query) {
+        return journeyFlights.execute(query, () -> requestJourneyList(query));
+    }
 
-                    if (bus.getRemainingSeatNumber() > 0) {
-                        buses.add(bus);
-                    }
-                }
+    private static CompletableFuture<ArrayList<Bus>> requestJourneyList(JourneyQuery query) {
+        LinkedHashMap<String, String> form = new LinkedHashMap<>();
+        form.put("boarding", query.getFrom().getHtmlValue());
+        form.put("landing", query.getTo().getHtmlValue());
+        form.put("boardingDate", DateCodec.formatDate(query.getDate()));
+        form.put("returnDate", DateCodec.formatDate(new Date(query.getDate().getTime() + 1000 * 60 * 60 * 24)));
+        form.put("isBothWay", "false");
 
-                if (onCompleted != null) onCompleted.call(buses);
-            } catch (IOException e) {
-                e.printStackTrace();
+        return provider.post("GetJourneyList", form).thenApply(bytes -> {
+            ArrayList<Bus> buses = new ArrayList<>();
+            try {
+                JourneyResponseParser.parse(bytes, query.getFrom(), query.getTo(), bus -> {
+                    tickets.getOccupancy(bus).setProviderSoldCount(bus.getSoldSeat());
+                    buses.add(bus);
+                });
             } catch (ParseException e) {
-                e.printStackTrace();
+                throw new CompletionException(e);
             }
-        }).start();
+
+            return buses;
+        });
     }
 
     /**
@@ -323,6 +464,47 @@ public class Helpers {
         return tryLoadPreSavedTickets(null);
     }
 
+    /**
+     * Loads the pre saved buses and tickets on a background thread, so that the user interface is shown without
+     * waiting for them, reporting the progress as messages. The loaded tickets are published to the tickets saved
+     * listeners in batches as they are decoded, and the bookings of this process wait only until the seats of the
+     * tickets are known, see {@link #whenSeatsLoaded()}.
+     *
+     * @return A future, completed with true if the tickets are loaded successfully.
+     */
+    public static CompletableFuture<Boolean> loadPreSavedDataInBackground() {
+        Thread thread = new Thread(() -> {
+            tryLoadPreSavedBuses();
+            tryLoadPreSavedTickets(loaded -> {
+                if (!loaded.isEmpty()) events.publish(TICKETS_SAVED, loaded);
+            });
+        }, "pre-saved-loader");
+        thread.setDaemon(true);
+        thread.start();
+
+        return ticketsLoaded;
+    }
+
+    /**
+     * Gets a future, completed once the seats sold and the ids of the pre saved tickets are known, either successfully
+     * or not, while the tickets of the snapshot may still be decoding. Until then, the seats sold by the tickets which
+     * are not loaded yet would look free.
+     *
+     * @return The future, completed with true if the seats are loaded successfully.
+     */
+    public static CompletableFuture<Boolean> whenSeatsLoaded() {
+        return seatsLoaded;
+    }
+
+    /**
+     * Gets a future, completed once all the pre saved tickets are loaded, either successfully or not.
+     *
+     * @return The future, completed with true if the tickets are loaded successfully.
+     */
+    public static CompletableFuture<Boolean> whenTicketsLoaded() {
+        return ticketsLoaded;
+    }
+
     /**
      * Try load pre saved buses boolean.
      *
@@ -341,21 +523,56 @@ public class Helpers {
         if (messageHandler != null) messageHandler.call(value);
     }
 
-    private static boolean tryLoadPreSavedBuses(Action<ArrayList<Bus>> onDone) {
-        try {
-            if (buses == null) buses = new ArrayList<>();
-            File file = new File(ROOT_FOLDER_PATH);
-            if (file.listFiles() == null) return false;
+    /**
+     * Writes the queued tickets and a snapshot, before the application exits.
+     */
+    public static void shutdown() {
+        seatHolds.shutdown();
+        prefetcher.shutdown();
+        provider.shutdown();
+        persistence.shutdown(10000);
+        trySaveSnapshot();
+    }
+
+    /**
+     * Gets the summary of the latest load of the pre saved data, with the time spent on its phases.
+     *
+     * @return The summary, or null if nothing is loaded yet.
+     */
+    public static String getLoadSummary() {
+        return loadSummary;
+    }
+
+    /**
+     * Gets a summary of the dispatch metrics of the event topics, one line per topic.
+     *
+     * @return The summary.
+     */
+    public static String getEventSummary() {
+        StringBuilder builder = new StringBuilder();
+        for (EventBus.Topic<?> topic : new EventBus.Topic<?>[]{TICKETS_SAVED, TICKET_REMOVED, LOCATION_CONDITION_CHANGED, SEAT_HOLD_CHANGED}) {
+            if (builder.length() > 0) builder.append('\n');
+            builder.append(topic).append(": ").append(topic.getMetrics());
+        }
 
-            for (File busFile : file.listFiles()) {
-                if (!busFile.getName().startsWith("bus-")) continue;
-                Bus bus = Bus.loadFromFile(busFile.getName());
+        return builder.toString();
+    }
 
-                if (buses.contains(bus)) continue;
-                buses.add(bus);
-            }
+    private static PreSavedLoader loader() throws IOException {
+        if (loader == null) {
+            loader = PreSavedLoader.scan(new File(ROOT_FOLDER_PATH));
+            loader.setOnProgressListener(count -> message("Loading saved data: " + count + " of " + loader.getFileCount()));
+        }
 
-            if (onDone != null) onDone.call(buses);
+        return loader;
+    }
+
+    private static boolean tryLoadPreSavedBuses(Action<ArrayList<Bus>> onDone) {
+        try {
+            if (buses == null) buses = new ConcurrentHashMap<>();
+            loader().loadBuses().forEach(buses::putIfAbsent);
+
+            if (onDone != null) onDone.call(new ArrayList<>(buses.values()));
 
             return true;
         } catch (Exception e) {
@@ -366,27 +583,79 @@ public class Helpers {
     }
 
     private static boolean tryLoadPreSavedTickets(Action<ArrayList<Ticket>> onDone) {
+        boolean isLoaded = false;
         try {
-            passengers = new ArrayList<>();
-            tickets = new ArrayList<>();
-            if (buses == null) buses = new ArrayList<>();
+            passengers.clear();
+            tickets.clear();
+            if (buses == null) buses = new ConcurrentHashMap<>();
             baggages = new ArrayList<>();
 
-            File file = new File(ROOT_FOLDER_PATH);
-            if (file.listFiles() == null) return false;
-            for (File ticketFile : file.listFiles()) {
-                if (!ticketFile.getName().startsWith("ticket-")) continue;
-                Ticket ticket = Ticket.loadFromFile(ticketFile.getName());
+            long start = System.nanoTime();
+            boolean isSnapshotLoaded = tryLoadSnapshot();
+            long snapshotIndexed = System.nanoTime();
+            LinkedHashMap<String, Ticket> restored = new LinkedHashMap<>();
+            int[] replayedCount = {0};
+            journal.replay(ticket -> {
+                if (restoreTicket(ticket)) restored.put(ticket.getId(), ticket);
+                if (++replayedCount[0] % LOAD_PROGRESS_INTERVAL == 0) message("Replaying saved tickets: " + replayedCount[0]);
+            }, id -> {
+                Ticket ticket = tickets.get(id);
+                if (ticket != null) tickets.remove(ticket);
+                restored.remove(id);
+            });
+            long journalReplayed = System.nanoTime();
+
+            for (Ticket ticket : migrateTicketFiles(loader())) restored.put(ticket.getId(), ticket);
+            String loaderSummary = String.valueOf(loader);
+            loader = null;
+
+            // The seats of all the tickets are known from here on, hence the bookings need not wait for the decoding.
+            seatsLoaded.complete(true);
+            if (onDone != null) onDone.call(new ArrayList<>(restored.values()));
+
+            int decodedCount = 0;
+            for (ArrayList<Ticket> decoded; !(decoded = tickets.decodeSnapshot(LOAD_PROGRESS_INTERVAL)).isEmpty(); ) {
+                for (Ticket ticket : decoded) registerTicket(ticket);
+                decodedCount += decoded.size();
+                message("Loading saved tickets: " + decodedCount);
+                if (onDone != null) onDone.call(decoded);
+            }
+            long snapshotDecoded = System.nanoTime();
+
+            loadSummary = String.format(
+                    "%d tickets loaded (snapshot index %d ms, journal %d ms, snapshot decode %d ms). %s",
+                    tickets.size(),
+                    (snapshotIndexed - start) / 1000000,
+                    (journalReplayed - snapshotIndexed) / 1000000,
+                    (snapshotDecoded - journalReplayed) / 1000000,
+                    loaderSummary
+            );
+            message(loadSummary);
+
+            journal.scheduleCompaction(tickets, JOURNAL_COMPACTION_PERIOD);
+            if (isSnapshotLoaded) {
+                isSnapshotWritable = true;
+                journal.scheduleCheckpoint(tickets, SNAPSHOT_PATH, SNAPSHOT_PERIOD);
+            }
 
-                Passenger passenger = ticket.getOwner();
-                if (passenger != null && !passengers.contains(passenger)) passengers.add(passenger);
+            isLoaded = true;
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            seatsLoaded.complete(isLoaded);
+            ticketsLoaded.complete(isLoaded);
+        }
 
-                Bus bus = ticket.getBus();
+        return isLoaded;
+    }
 
-                if (!buses.contains(bus)) buses.add(bus);
-                tickets.add(ticket);
-            }
+    private static boolean tryLoadSnapshot() {
+        try {
+            Snapshot snapshot = Snapshot.open(SNAPSHOT_PATH);
+            if (snapshot == null) return true;
 
+            // Only the seats and the ids are read here, the tickets are decoded on access or after the journal.
+            tickets.attach(snapshot);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -394,4 +663,62 @@ public class Helpers {
 
         return false;
     }
+
+    /**
+     * Writes a snapshot of the tickets, so that the next start does not need to replay the journal.
+     * Snapshots are not written if the tickets are not loaded successfully, since the snapshot would then replace
+     * the tickets which could not be loaded.
+     *
+     * @return True if the snapshot is written.
+     */
+    public static boolean trySaveSnapshot() {
+        if (!isSnapshotWritable) return false;
+
+        try {
+            journal.checkpoint(tickets, SNAPSHOT_PATH);
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    private static boolean restoreTicket(Ticket ticket) {
+        registerTicket(ticket);
+        return tickets.restore(ticket);
+    }
+
+    private static void registerTicket(Ticket ticket) {
+        Bus bus = ticket.getBus();
+        if (bus != null) {
+            passengers.registerAll(bus.getPassengers());
+            buses.putIfAbsent(bus.getKey(), bus);
+        }
+    }
+
+    /**
+     * Moves the tickets saved as separate files, by the older versions, into the journal.
+     * A ticket file is deleted only after its ticket is durable in the journal.
+     *
+     * @param loader Loader of the saved files.
+     * @return The tickets restored from the files.
+     * @throws IOException If the tickets could not be written to the journal.
+     */
+    private static ArrayList<Ticket> migrateTicketFiles(PreSavedLoader loader) throws IOException {
+        ConcurrentLinkedQueue<Path> migratedFiles = new ConcurrentLinkedQueue<>();
+        ArrayList<Ticket> migrated = new ArrayList<>();
+        for (Ticket ticket : loader.loadTickets(migratedFiles).values()) {
+            if (tickets.contains(ticket)) continue;
+
+            restoreTicket(ticket);
+            migrated.add(ticket);
+        }
+
+        if (migratedFiles.isEmpty()) return migrated;
+
+        journal.appendSales(migrated);
+        for (Path ticketFile : migratedFiles) Files.deleteIfExists(ticketFile);
+        return migrated;
+    }
 }
@@ -0,0 +1,124 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the journey search results.
+ * An entry is fresh for the time to live, and after that, it is still served as stale for a while, during which it is
+ * expected to be revalidated in the background. The least recently used entry is evicted when the cache is full.
+ * <p>
+ * The cached buses are not invalidated by the local sales, since their remaining seats are read from the seat
+ * occupancy of their journeys, which is patched by every ticket added or removed.
+ */
+public class JourneyCache {
+    private final long timeToLive, staleWindow;
+    private final LinkedHashMap<JourneyQuery, Entry> entries;
+    private final HashSet<JourneyQuery> revalidating = new HashSet<>();
+
+    /**
+     * Instantiates a new Journey cache.
+     *
+     * @param timeToLive  Time, in milliseconds, an entry is fresh.
+     * @param staleWindow Time, in milliseconds, an entry is served as stale after it expires.
+     * @param maxEntries  Maximum number of the entries.
+     */
+    public JourneyCache(long timeToLive, long staleWindow, int maxEntries) {
+        this.timeToLive = timeToLive;
+        this.staleWindow = staleWindow;
+        this.entries = new LinkedHashMap<JourneyQuery, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<JourneyQuery, JourneyCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached entry of a query.
+     *
+     * @param query Query to look up.
+     * @return The entry, or null if there is no entry or it is too old to be served.
+     */
+    public synchronized Entry get(JourneyQuery query) {
+        Entry entry = entries.get(query);
+        if (entry == null) return null;
+
+        long age = System.currentTimeMillis() - entry.loadedAt;
+        if (age > timeToLive + staleWindow) {
+            entries.remove(query);
+            return null;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Caches the result of a query.
+     *
+     * @param query Query of the result.
+     * @param buses Buses found.
+     */
+    public synchronized void put(JourneyQuery query, ArrayList<Bus> buses) {
+        entries.put(query, new Entry(buses, System.currentTimeMillis()));
+        revalidating.remove(query);
+    }
+
+    /**
+     * Marks a query as being revalidated, if it is not already.
+     * The mark is cleared when the new result is put, or by {@link #cancelRevalidation(JourneyQuery)}.
+     *
+     * @param query Query to revalidate.
+     * @return True if the caller should revalidate the query.
+     */
+    public synchronized boolean tryStartRevalidation(JourneyQuery query) {
+        return revalidating.add(query);
+    }
+
+    /**
+     * Clears the revalidation mark of a query, after a failed revalidation.
+     *
+     * @param query Query which was being revalidated.
+     */
+    public synchronized void cancelRevalidation(JourneyQuery query) {
+        revalidating.remove(query);
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Cached result of a query.
+     */
+    public class Entry {
+        private final ArrayList<Bus> buses;
+        private final long loadedAt;
+
+        private Entry(ArrayList<Bus> buses, long loadedAt) {
+            this.buses = buses;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * Gets the cached buses. The list shall not be modified.
+         *
+         * @return The cached buses.
+         */
+        public ArrayList<Bus> getBuses() {
+            return buses;
+        }
+
+        /**
+         * Checks whether the entry is expired and should be revalidated.
+         *
+         * @return True if the entry is stale.
+         */
+        public boolean isStale() {
+            return System.currentTimeMillis() - loadedAt > timeToLive;
+        }
+    }
+}
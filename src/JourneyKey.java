@@ -0,0 +1,107 @@
+import java.util.Objects;
+
+/**
+ * Immutable key of a journey.
+ * A journey is identified by the bus code, the HTML values of its movement and landing locations and its movement
+ * date. The hash code is computed once, hence this can be used as a key of hash based collections cheaply.
+ */
+public final class JourneyKey {
+    private final String code, from, to;
+    private final long movementTime;
+    private final int hash;
+
+    /**
+     * Instantiates a new Journey key.
+     *
+     * @param code         The bus code.
+     * @param from         The HTML value of the movement location.
+     * @param to           The HTML value of the landing location.
+     * @param movementTime The movement date of the bus, in milliseconds.
+     */
+    JourneyKey(String code, String from, String to, long movementTime) {
+        this.code = code;
+        this.from = from;
+        this.to = to;
+        this.movementTime = movementTime;
+
+        int hash = Objects.hashCode(code);
+        hash = 31 * hash + Objects.hashCode(from);
+        hash = 31 * hash + Objects.hashCode(to);
+        hash = 31 * hash + Long.hashCode(movementTime);
+        this.hash = hash;
+    }
+
+    /**
+     * Creates the journey key of a bus.
+     *
+     * @param bus Bus to create the key of.
+     * @return The journey key of the bus.
+     */
+    static JourneyKey of(Bus bus) {
+        return new JourneyKey(
+                bus.getCode(),
+                bus.getFrom() == null ? null : bus.getFrom().getHtmlValue(),
+                bus.getTo() == null ? null : bus.getTo().getHtmlValue(),
+                bus.getMovementDate() == null ? 0 : bus.getMovementDate().getTime()
+        );
+    }
+
+    /**
+     * Gets the bus code.
+     *
+     * @return The bus code.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the HTML value of the movement location.
+     *
+     * @return The HTML value of the movement location.
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the HTML value of the landing location.
+     *
+     * @return The HTML value of the landing location.
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Gets the movement date, in milliseconds.
+     *
+     * @return The movement date.
+     */
+    public long getMovementTime() {
+        return movementTime;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof JourneyKey)) return false;
+
+        JourneyKey other = (JourneyKey) obj;
+        return hash == other.hash &&
+                movementTime == other.movementTime &&
+                Objects.equals(code, other.code) &&
+                Objects.equals(from, other.from) &&
+                Objects.equals(to, other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return code + '|' + from + '|' + to + '|' + movementTime;
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Background prefetcher of the journeys of the days around a searched day.
+ * After a search, the same route is loaded for the neighbouring days into the journey cache, nearest days first, so
+ * that moving the day back and forth is served from the cache. Prefetching runs on a single thread of the lowest
+ * priority, one request at a time, and waits while any search of the user is in progress. A new search replaces the
+ * prefetches still waiting for the previous one.
+ */
+public class JourneyPrefetcher {
+    private static final long FETCH_TIMEOUT = 30000;
+
+    private final JourneyCache cache;
+    private final Function<JourneyQuery, CompletableFuture<ArrayList<Bus>>> fetcher;
+    private final int days;
+    private final LinkedBlockingDeque<JourneyQuery> queue = new LinkedBlockingDeque<>();
+    private final Object searchLock = new Object();
+    private final Thread worker;
+    private int activeSearchCount = 0;
+
+    /**
+     * Instantiates a new Journey prefetcher.
+     *
+     * @param cache   Cache to store the prefetched journeys in.
+     * @param fetcher A function fetching the journeys of a query from the provider.
+     * @param days    Number of the days to prefetch, before and after the searched day. Zero disables prefetching.
+     */
+    public JourneyPrefetcher(JourneyCache cache, Function<JourneyQuery, CompletableFuture<ArrayList<Bus>>> fetcher, int days) {
+        this.cache = cache;
+        this.fetcher = fetcher;
+        this.days = days;
+
+        worker = new Thread(this::run, "journey-prefetch");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * Marks a search of the user as started. Prefetching pauses until all the started searches are finished.
+     */
+    public void userSearchStarted() {
+        synchronized (searchLock) {
+            activeSearchCount++;
+        }
+    }
+
+    /**
+     * Marks a search of the user as finished.
+     */
+    public void userSearchFinished() {
+        synchronized (searchLock) {
+            activeSearchCount--;
+            searchLock.notifyAll();
+        }
+    }
+
+    /**
+     * Queues the neighbouring days of a searched query, replacing the ones queued before.
+     * The days in the past are skipped.
+     *
+     * @param query Query searched by the user.
+     */
+    public void prefetch(JourneyQuery query) {
+        if (days <= 0) return;
+
+        int today = DateCodec.dayOf(new Date());
+        ArrayList<JourneyQuery> queries = new ArrayList<>(days * 2);
+        for (int i = 1; i <= days; i++) {
+            queries.add(query.plusDays(i));
+
+            JourneyQuery previous = query.plusDays(-i);
+            if (DateCodec.dayOf(previous.getDate()) >= today) queries.add(previous);
+        }
+
+        queue.clear();
+        queue.addAll(queries);
+    }
+
+    /**
+     * Stops prefetching. The queued days are dropped.
+     */
+    public void shutdown() {
+        queue.clear();
+        worker.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                JourneyQuery query = queue.take();
+
+                synchronized (searchLock) {
+                    while (activeSearchCount > 0) searchLock.wait();
+                }
+
+                JourneyCache.Entry entry = cache.get(query);
+                if (entry != null && !entry.isStale()) continue;
+
+                try {
+                    cache.put(query, fetcher.apply(query).get(FETCH_TIMEOUT, TimeUnit.MILLISECONDS));
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
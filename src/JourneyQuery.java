@@ -0,0 +1,95 @@
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Immutable journey search query, a route and a boarding day.
+ * Two queries are equal if their locations have the same HTML values and their dates are on the same day, hence this
+ * is used as the key of the journey searches.
+ */
+public final class JourneyQuery {
+    private final Location from, to;
+    private final Date date;
+    private final int boardingDay;
+    private final int hash;
+
+    /**
+     * Instantiates a new Journey query.
+     *
+     * @param from Movement location.
+     * @param to   Landing location.
+     * @param date Boarding date, only its day is taken into account.
+     */
+    public JourneyQuery(Location from, Location to, Date date) {
+        this.from = from;
+        this.to = to;
+        this.date = date;
+
+        boardingDay = DateCodec.dayOf(date);
+
+        int hash = from.getHtmlValue().hashCode();
+        hash = 31 * hash + to.getHtmlValue().hashCode();
+        hash = 31 * hash + boardingDay;
+        this.hash = hash;
+    }
+
+    /**
+     * Gets the movement location.
+     *
+     * @return The movement location.
+     */
+    public Location getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the landing location.
+     *
+     * @return The landing location.
+     */
+    public Location getTo() {
+        return to;
+    }
+
+    /**
+     * Gets the boarding date.
+     *
+     * @return The boarding date.
+     */
+    public Date getDate() {
+        return date;
+    }
+
+    /**
+     * Creates a query for the same route, some days later or earlier.
+     *
+     * @param days Number of the days to add, may be negative.
+     * @return The new query.
+     */
+    public JourneyQuery plusDays(int days) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.add(Calendar.DAY_OF_MONTH, days);
+        return new JourneyQuery(from, to, calendar.getTime());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof JourneyQuery)) return false;
+
+        JourneyQuery other = (JourneyQuery) obj;
+        return boardingDay == other.boardingDay &&
+                from.getHtmlValue().equals(other.from.getHtmlValue()) &&
+                to.getHtmlValue().equals(other.to.getHtmlValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s → %s @ %d", from.getName(), to.getName(), boardingDay);
+    }
+}
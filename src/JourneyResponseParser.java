@@ -0,0 +1,374 @@
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * Streaming parser of the journey list responses of the provider.
+ * The response bytes are scanned once, only the rows of oneWay.rc1 are decoded and every other value is skipped
+ * without being materialized. A bus is created and emitted as soon as its row ends, thus no intermediate tree or
+ * text copy of the response is built.
+ */
+public class JourneyResponseParser {
+    private static final byte[][] FIELDS = {
+            bytes("PLAKA"),
+            bytes("UNIQUE_KEY"),
+            bytes("TOTALSEAT"),
+            bytes("BINIS_SAATI"),
+            bytes("SEFERDATE"),
+            bytes("B_DA_SEFERDATE"),
+            bytes("GEN_SOLDSEAT"),
+            bytes("GEN_WEBPRICE"),
+            bytes("INIS_ARAYOLDATE"),
+            bytes("INIS_ANAYOLDATE"),
+            bytes("INIS_SAATI")
+    };
+    private static final int PLATE = 0, UNIQUE_KEY = 1, TOTAL_SEAT = 2, BOARDING_TIME = 3, DATE = 4, ALTERNATIVE_DATE = 5,
+            SOLD_SEAT = 6, PRICE = 7, LANDING_DATE = 8, ALTERNATIVE_LANDING_DATE = 9, LANDING_TIME = 10;
+    private static final byte[] ONE_WAY = bytes("oneWay"), ROWS = bytes("rc1");
+
+    private final byte[] data;
+    private final Location from, to;
+    private final Action<Bus> onBus;
+    private final int[] valueStarts = new int[FIELDS.length], valueEnds = new int[FIELDS.length];
+    private final boolean[] isEscaped = new boolean[FIELDS.length];
+    private int position, tokenStart, tokenEnd;
+    private boolean isTokenEscaped;
+
+    private JourneyResponseParser(byte[] data, Location from, Location to, Action<Bus> onBus) {
+        this.data = data;
+        this.from = from;
+        this.to = to;
+        this.onBus = onBus;
+    }
+
+    /**
+     * Parses a journey list response, emitting a bus per row.
+     *
+     * @param data  Response body, encoded in UTF-8.
+     * @param from  Movement location of the buses.
+     * @param to    Landing location of the buses.
+     * @param onBus An action to call with each bus, in the order of the rows.
+     * @throws ParseException If the response is malformed or a row misses a required field.
+     */
+    public static void parse(byte[] data, Location from, Location to, Action<Bus> onBus) throws ParseException {
+        new JourneyResponseParser(data, from, to, onBus).parseResponse();
+    }
+
+    private void parseResponse() throws ParseException {
+        if (!tryBeginObject()) return;
+        while (nextKey()) {
+            if (isToken(ONE_WAY)) parseOneWay();
+            else skipValue();
+        }
+    }
+
+    private void parseOneWay() throws ParseException {
+        if (!tryBeginObject()) return;
+        while (nextKey()) {
+            if (isToken(ROWS)) parseRows();
+            else skipValue();
+        }
+    }
+
+    private void parseRows() throws ParseException {
+        skipWhitespace();
+        if (tryLiteral("null")) return;
+        expect('[');
+
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+
+        do {
+            skipWhitespace();
+            if (peek() == '{') parseRow();
+            else skipValue();
+            skipWhitespace();
+        } while (tryConsume(','));
+
+        expect(']');
+    }
+
+    private void parseRow() throws ParseException {
+        int rowStart = position;
+        for (int i = 0; i < FIELDS.length; i++) valueStarts[i] = -1;
+
+        tryBeginObject();
+        while (nextKey()) {
+            int field = fieldIndex();
+            if (field < 0) {
+                skipValue();
+                continue;
+            }
+
+            skipWhitespace();
+            if (tryLiteral("null")) continue;
+
+            readScalar();
+            valueStarts[field] = tokenStart;
+            valueEnds[field] = tokenEnd;
+            isEscaped[field] = isTokenEscaped;
+        }
+
+        String plate = has(PLATE) ? string(PLATE) : string(require(UNIQUE_KEY, rowStart));
+        Bus bus = new Bus(plate, integer(require(TOTAL_SEAT, rowStart)), from, to);
+        bus.setMovementDate(dateTime(
+                has(DATE) ? DATE : require(ALTERNATIVE_DATE, rowStart),
+                require(BOARDING_TIME, rowStart)
+        ));
+        bus.setSoldSeat(integer(require(SOLD_SEAT, rowStart)));
+        bus.setPrice(Double.parseDouble(string(require(PRICE, rowStart))));
+        bus.setLandingDate(dateTime(
+                has(LANDING_DATE) ? LANDING_DATE : require(ALTERNATIVE_LANDING_DATE, rowStart),
+                require(LANDING_TIME, rowStart)
+        ));
+
+        onBus.call(bus);
+    }
+
+    private boolean has(int field) {
+        return valueStarts[field] >= 0;
+    }
+
+    private int require(int field, int rowStart) throws ParseException {
+        if (!has(field)) {
+            throw new ParseException("Missing " + new String(FIELDS[field], StandardCharsets.US_ASCII), rowStart);
+        }
+
+        return field;
+    }
+
+    private String string(int field) {
+        int start = valueStarts[field], end = valueEnds[field];
+        if (!isEscaped[field]) return new String(data, start, end - start, StandardCharsets.UTF_8);
+        return unescape(start, end);
+    }
+
+    private int integer(int field) throws ParseException {
+        int start = valueStarts[field], end = valueEnds[field];
+        boolean isNegative = start < end && data[start] == '-';
+        int first = isNegative ? start + 1 : start;
+        if (first >= end || data[first] == '.') throw new ParseException("Invalid integer", start);
+
+        int value = 0;
+        for (int i = first; i < end; i++) {
+            byte b = data[i];
+            if (b == '.') break;
+            if (b < '0' || b > '9') throw new ParseException("Invalid integer", i);
+            value = value * 10 + (b - '0');
+        }
+
+        return isNegative ? -value : value;
+    }
+
+    /**
+     * Combines the day of a yyyy-MM-ddTHH:mm:ss value and the hour and minute of a HH:mm value.
+     */
+    private Date dateTime(int dateField, int timeField) throws ParseException {
+        int date = valueStarts[dateField], time = valueStarts[timeField];
+        if (valueEnds[dateField] - date < 10 || valueEnds[timeField] - time < 5) {
+            throw new ParseException("Invalid date", date);
+        }
+
+        return new Date(DateCodec.toMillis(
+                digits(date, 4),
+                digits(date + 5, 2),
+                digits(date + 8, 2),
+                digits(time, 2),
+                digits(time + 3, 2),
+                valueEnds[dateField] - date >= 19 ? digits(date + 17, 2) : 0,
+                0
+        ));
+    }
+
+    private int digits(int start, int count) throws ParseException {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            byte b = data[i];
+            if (b < '0' || b > '9') throw new ParseException("Invalid date", i);
+            value = value * 10 + (b - '0');
+        }
+
+        return value;
+    }
+
+    private int fieldIndex() {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (isToken(FIELDS[i])) return i;
+        }
+
+        return -1;
+    }
+
+    private boolean isToken(byte[] name) {
+        if (isTokenEscaped || tokenEnd - tokenStart != name.length) return false;
+        for (int i = 0; i < name.length; i++) {
+            if (data[tokenStart + i] != name[i]) return false;
+        }
+
+        return true;
+    }
+
+    private boolean tryBeginObject() throws ParseException {
+        skipWhitespace();
+        if (tryLiteral("null")) return false;
+        expect('{');
+        return true;
+    }
+
+    /**
+     * Reads the next key of the current object into the token, consuming the colon after it.
+     *
+     * @return False if the object ended.
+     */
+    private boolean nextKey() throws ParseException {
+        skipWhitespace();
+        byte b = peek();
+        if (b == '}') {
+            position++;
+            return false;
+        }
+
+        if (b == ',') {
+            position++;
+            skipWhitespace();
+        }
+
+        readString();
+        skipWhitespace();
+        expect(':');
+        return true;
+    }
+
+    /**
+     * Reads a string, number or literal into the token. The quotes of a string are not included.
+     */
+    private void readScalar() throws ParseException {
+        skipWhitespace();
+        if (peek() == '"') {
+            readString();
+            return;
+        }
+
+        tokenStart = position;
+        while (position < data.length) {
+            byte b = data[position];
+            if (b == ',' || b == '}' || b == ']' || (b & 0xff) <= ' ') break;
+            position++;
+        }
+
+        tokenEnd = position;
+        isTokenEscaped = false;
+        if (tokenEnd == tokenStart) throw new ParseException("Expected a value", position);
+    }
+
+    private void readString() throws ParseException {
+        expect('"');
+        tokenStart = position;
+        isTokenEscaped = false;
+        while (true) {
+            if (position >= data.length) throw new ParseException("Unterminated string", tokenStart);
+
+            byte b = data[position];
+            if (b == '"') break;
+            if (b == '\\') {
+                isTokenEscaped = true;
+                position++;
+            }
+
+            position++;
+        }
+
+        tokenEnd = position++;
+    }
+
+    private void skipValue() throws ParseException {
+        skipWhitespace();
+        byte b = peek();
+        if (b == '"') {
+            readString();
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+                b = peek();
+                if (b == '"') {
+                    readString();
+                    continue;
+                }
+
+                if (b == '{' || b == '[') depth++;
+                else if (b == '}' || b == ']') depth--;
+                position++;
+            } while (depth > 0);
+        } else {
+            readScalar();
+        }
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        int chunkStart = start;
+        for (int i = start; i < end; i++) {
+            if (data[i] != '\\') continue;
+
+            builder.append(new String(data, chunkStart, i - chunkStart, StandardCharsets.UTF_8));
+            char c = (char) data[++i];
+            switch (c) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    builder.append((char) Integer.parseInt(new String(data, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    i += 4;
+                    break;
+                default: builder.append(c);
+            }
+
+            chunkStart = i + 1;
+        }
+
+        builder.append(new String(data, chunkStart, end - chunkStart, StandardCharsets.UTF_8));
+        return builder.toString();
+    }
+
+    private void skipWhitespace() {
+        while (position < data.length && (data[position] & 0xff) <= ' ') position++;
+    }
+
+    private byte peek() throws ParseException {
+        if (position >= data.length) throw new ParseException("Unexpected end of the response", position);
+        return data[position];
+    }
+
+    private boolean tryConsume(char c) throws ParseException {
+        if (position < data.length && data[position] == c) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(char c) throws ParseException {
+        if (peek() != c) throw new ParseException("Expected '" + c + "'", position);
+        position++;
+    }
+
+    private boolean tryLiteral(String literal) {
+        if (position + literal.length() > data.length) return false;
+        for (int i = 0; i < literal.length(); i++) {
+            if (data[position + i] != literal.charAt(i)) return false;
+        }
+
+        position += literal.length();
+        return true;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
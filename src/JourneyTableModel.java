@@ -0,0 +1,147 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Table model of the journeys found by a search.
+ * The contents are replaced as a whole, with a single table event on the event dispatch thread, and the displayed
+ * texts of the price and the dates are computed once, when the contents are set, on the calling thread. The
+ * remaining seats are read from the seat occupancies, hence they are always up to date.
+ */
+public class JourneyTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {"Route", "Price", "Movement Date", "Landing Date", "Remaining Seat"};
+    private static final Rows EMPTY = new Rows(new Bus[0], new String[0][]);
+
+    private Rows rows = EMPTY;
+
+    /**
+     * Replaces the journeys. This may be called from any thread.
+     *
+     * @param buses Buses of the journeys, in the order to show.
+     */
+    public void setBuses(List<Bus> buses) {
+        Bus[] array = buses.toArray(new Bus[0]);
+        String[][] texts = new String[array.length][];
+        for (int i = 0; i < array.length; i++) {
+            Bus bus = array[i];
+            texts[i] = new String[]{
+                    formatPrice(bus.getPrice()),
+                    DateCodec.formatDateMinute(bus.getMovementDate()),
+                    DateCodec.formatDateMinute(bus.getLandingDate())
+            };
+        }
+
+        swap(new Rows(array, texts));
+    }
+
+    /**
+     * Removes all the journeys. This may be called from any thread.
+     */
+    public void clear() {
+        swap(EMPTY);
+    }
+
+    /**
+     * Gets the bus of a row.
+     *
+     * @param row Index of the row.
+     * @return The bus.
+     */
+    public Bus getBus(int row) {
+        return rows.buses[row];
+    }
+
+    /**
+     * Notifies the table that the remaining seats of a journey have changed.
+     *
+     * @param key Key of the journey.
+     */
+    public void fireRemainingSeatChanged(JourneyKey key) {
+        fireRemainingSeatChanged(Collections.singleton(key));
+    }
+
+    /**
+     * Notifies the table that the remaining seats of some journeys have changed, with a single pass over the rows.
+     *
+     * @param keys Keys of the journeys.
+     */
+    public void fireRemainingSeatChanged(Set<JourneyKey> keys) {
+        if (keys.isEmpty()) return;
+
+        runOnEventThread(() -> {
+            Bus[] buses = rows.buses;
+            for (int i = 0; i < buses.length; i++) {
+                if (keys.contains(buses[i].getKey())) fireTableCellUpdated(i, 4);
+            }
+        });
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.buses.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0:
+                return Bus.class;
+            case 4:
+                return Integer.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Rows rows = this.rows;
+        switch (column) {
+            case 0:
+                return rows.buses[row];
+            case 4:
+                return rows.buses[row].getRemainingSeatNumber();
+            default:
+                return rows.texts[row][column - 1];
+        }
+    }
+
+    private void swap(Rows next) {
+        runOnEventThread(() -> {
+            rows = next;
+            fireTableDataChanged();
+        });
+    }
+
+    private static void runOnEventThread(Runnable runnable) {
+        if (SwingUtilities.isEventDispatchThread()) runnable.run();
+        else SwingUtilities.invokeLater(runnable);
+    }
+
+    private static String formatPrice(double price) {
+        String text = ((int) price) == price ? String.valueOf((int) price) : String.valueOf(price);
+        return text + " TL";
+    }
+
+    private static class Rows {
+        private final Bus[] buses;
+        private final String[][] texts;
+
+        private Rows(Bus[] buses, String[][] texts) {
+            this.buses = buses;
+            this.texts = texts;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Booking operations on the store of this process.
+ * The journeys are searched through the provider, and the purchases and cancellations are completed once they are
+ * written to the journal, or reported as a message if they could not be written. They wait until the seats of the pre
+ * saved tickets are known, since the seats of the tickets which are not loaded yet would look free, while the listing
+ * waits until all the tickets are loaded.
+ */
+public class LocalBookingService implements BookingService {
+    @Override
+    public CompletableFuture<ArrayList<Bus>> searchJourneys(Location from, Location to, Date date) {
+        return Helpers.searchJourneys(new JourneyQuery(from, to, date));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> purchase(Ticket ticket, SeatHold hold) {
+        return Helpers.whenSeatsLoaded().thenCompose(isLoaded -> purchaseLoaded(ticket, hold));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancel(Ticket ticket) {
+        return Helpers.whenSeatsLoaded().thenCompose(isLoaded -> cancelLoaded(ticket));
+    }
+
+    private CompletableFuture<Boolean> purchaseLoaded(Ticket ticket, SeatHold hold) {
+        if (!Helpers.addTicket(ticket, hold)) return CompletableFuture.completedFuture(false);
+
+        return Helpers.persistence.save(ticket).handle((result, error) -> {
+            if (error != null) Helpers.message("Ticket " + ticket.toString() + " could not be saved");
+            return true;
+        });
+    }
+
+    private CompletableFuture<Boolean> cancelLoaded(Ticket ticket) {
+        Ticket stored = Helpers.tickets.get(ticket.getId());
+        if (stored == null || !Helpers.removeTicket(stored)) return CompletableFuture.completedFuture(false);
+
+        return Helpers.persistence.cancel(stored).handle((result, error) -> {
+            if (error != null) Helpers.message("Cancellation of ticket " + stored.toString() + " could not be saved");
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<Ticket>> listTickets() {
+        return Helpers.whenTicketsLoaded().thenApply(isLoaded -> Helpers.tickets.toList());
+    }
+}
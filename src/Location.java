@@ -1,9 +1,13 @@
 import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The type Location.
  */
 public class Location implements Serializable {
+    private static final ConcurrentHashMap<Location, Location> INTERNED = new ConcurrentHashMap<>();
+
     private String name;
     private String htmlValue;
 
@@ -24,6 +28,20 @@ public class Location implements Serializable {
         this.htmlValue = htmlValue;
     }
 
+    /**
+     * Gets the canonical instance of a location.
+     * Equal locations are represented by the same instance, hence the interned instances shall not be modified.
+     *
+     * @param location Location to intern.
+     * @return The canonical instance of the location, or null if the location is null.
+     */
+    public static Location intern(Location location) {
+        if (location == null) return null;
+
+        Location interned = INTERNED.putIfAbsent(location, location);
+        return interned == null ? location : interned;
+    }
+
     /**
      * Gets the name of the location.
      *
@@ -62,7 +80,14 @@ public class Location implements Serializable {
         if (obj == null) return false;
         if (!(obj instanceof Location)) return false;
 
-        if (!((Location) obj).name.equals(name)) return false;
-        return ((Location) obj).htmlValue.equals(htmlValue);
+        if (obj == this) return true;
+
+        if (!Objects.equals(((Location) obj).name, name)) return false;
+        return Objects.equals(((Location) obj).htmlValue, htmlValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(name) + Objects.hashCode(htmlValue);
     }
 }
@@ -1,19 +1,19 @@
 import net.miginfocom.swing.MigLayout;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowEvent;
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 
 /**
  * The type Main frame.
  */
 public class MainFrame extends JFrame {
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
     private SearchPanel searchPanel;
     private BusPanel busPanel;
 
@@ -34,10 +34,73 @@ public class MainFrame extends JFrame {
      * @param args the input arguments
      */
     public static void main(String[] args) {
-        Helpers.tryLoadPreSavedBuses();
-        Helpers.tryLoadPreSavedTickets();
+        // Idle connections kept alive per host, read once by the JDK, hence set before any client makes a request.
+        if (System.getProperty("http.maxConnections") == null) {
+            int connections = Math.max(
+                    Integer.getInteger("busticketing.provider.connections", 8),
+                    Integer.getInteger("busticketing.server.connections", 8)
+            );
+            System.setProperty("http.maxConnections", String.valueOf(connections));
+        }
+
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("busticketing.server.port", 8080);
+            runServer(port);
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(Helpers::shutdown));
         MainFrame mainFrame = new MainFrame();
         mainFrame.setVisible(true);
+
+        // The saved data is loaded once the window is shown, hence the time to show it does not depend on the data.
+        // The tickets of a booking server are listed from it instead.
+        if (!Helpers.isRemoteBooking()) {
+            Helpers.loadPreSavedDataInBackground();
+        } else {
+            Helpers.tryLoadPreSavedBuses();
+            Helpers.booking.listTickets().whenComplete((tickets, error) -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    Helpers.message("Tickets could not be listed from the booking server");
+                    return;
+                }
+
+                Helpers.addTickets(tickets);
+            });
+        }
+    }
+
+    /**
+     * Runs the booking server without the user interface, serving the tickets of this process to the agents.
+     *
+     * @param port Port to listen on.
+     */
+    private static void runServer(int port) {
+        Helpers.messageHandler = System.out::println;
+        // Read by the JDK HTTP server once, which writes the response headers and the body separately, hence they
+        // would otherwise stall on delayed acknowledgements.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        Helpers.tryLoadPreSavedBuses();
+        Helpers.tryLoadPreSavedTickets();
+
+        try {
+            BookingHttpServer server = new BookingHttpServer(
+                    new LocalBookingService(),
+                    new InetSocketAddress(port),
+                    Integer.getInteger("busticketing.server.threads", 64)
+            );
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(5);
+                Helpers.shutdown();
+            }));
+
+            System.out.println("Booking server is listening on " + server.getAddress());
+        } catch (IOException e) {
+            e.printStackTrace();
+            Helpers.shutdown();
+        }
     }
 
     private void initMenu() {
@@ -50,6 +113,16 @@ public class MainFrame extends JFrame {
 
         fileMenu.add(fmImportTickets);
         fileMenu.add(fmExportTickets);
+        // Importing or exporting before the saved tickets are loaded would miss them. Against a booking server, the
+        // tickets of this process are only a mirror of the server, which an import would bypass, hence never enabled.
+        fmImportTickets.setEnabled(false);
+        fmExportTickets.setEnabled(false);
+        if (!Helpers.isRemoteBooking()) {
+            Helpers.whenTicketsLoaded().thenRun(() -> SwingUtilities.invokeLater(() -> {
+                fmImportTickets.setEnabled(true);
+                fmExportTickets.setEnabled(true);
+            }));
+        }
         fileMenu.addSeparator();
         fileMenu.add(fmExit);
         menuBar.add(fileMenu);
@@ -94,44 +167,48 @@ public class MainFrame extends JFrame {
             JFileChooser chooser = new JFileChooser();
             if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
                 File file = chooser.getSelectedFile();
-                try {
-                    String bytes = new String(Files.readAllBytes(file.toPath()));
-                    JSONArray array = new JSONArray(bytes);
-                    for (int i = 0, limit = array.length(); i < limit; i++) {
-                        JSONObject ticketObject = array.getJSONObject(i);
-                        Ticket readTicket = Helpers.JSON_MAPPER.readValue(ticketObject.toString().getBytes(), Ticket.class);
-
-                        if (Helpers.tickets.contains(readTicket)) continue;
-                        Helpers.addTicket(readTicket);
-                        readTicket.trySave();
+                TicketImporter importer = new TicketImporter(file.toPath(), IMPORT_BATCH_SIZE);
+                importer.setOnProgressListener(count -> Helpers.message("Importing tickets: " + count + " read"));
+
+                new Thread(() -> {
+                    int[] importedCount = {0};
+                    try {
+                        importer.read(batch -> {
+                            ArrayList<Ticket> added = Helpers.addTickets(batch);
+                            for (Ticket ticket : added) Helpers.persistence.save(ticket);
+                            importedCount[0] += added.size();
+                        });
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                        Helpers.message("Could not imported, " + importedCount[0] + " tickets has/have been imported");
+                        return;
                     }
 
-                    Helpers.message("All " + array.length() + " tickets has/have been imported");
-                }
-                catch (Exception ex) {
-                    ex.printStackTrace();
-                    Helpers.message("Could not imported");
-                }
+                    int conflictCount = importer.getReadCount() - importer.getDuplicateCount() - importedCount[0];
+                    Helpers.persistence.flush().whenComplete((result, error) -> Helpers.message(error == null
+                            ? "All " + importedCount[0] + " tickets has/have been imported, " + importer.getDuplicateCount()
+                            + " duplicates and " + conflictCount + " tickets of sold seats skipped"
+                            : "Imported tickets could not be saved"));
+                }, "ticket-import").start();
             }
         });
         fmExportTickets.addActionListener(e -> {
-            JSONArray arr = new JSONArray(Helpers.tickets.parallelStream().map(it -> it.toJson()).toArray());
             JFileChooser chooser = new JFileChooser();
             if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
                 File file = chooser.getSelectedFile();
-                try {
-                    Files.write(
-                            file.toPath(),
-                            arr.toString().getBytes(),
-                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
-                    );
-
-                    Helpers.message("Tickets exported!");
-                } catch (IOException e1) {
-                    e1.printStackTrace();
-                }
+                TicketExporter exporter = new TicketExporter(Helpers.tickets.toList());
+                exporter.setOnProgressListener(count -> Helpers.message("Exporting tickets: " + count + " written"));
+
+                new Thread(() -> {
+                    try {
+                        exporter.write(file.toPath());
+                        Helpers.message("Tickets exported!");
+                    } catch (IOException e1) {
+                        e1.printStackTrace();
+                        Helpers.message("Tickets could not be exported");
+                    }
+                }, "ticket-export").start();
             }
-
         });
         fmExit.addActionListener(e -> this.dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING)));
 
@@ -199,9 +276,10 @@ public class MainFrame extends JFrame {
         tabbedPane.addTab("Ticket List", listIcon, ticketListPanel);
 
         add(tabbedPane, "grow, push, wrap");
-        JLabel lblMessage = new JLabel("System: Working");
+        JLabel lblMessage = new JLabel(Helpers.getLoadSummary() == null ? "System: Working" : Helpers.getLoadSummary());
 
-        Helpers.messageHandler = lblMessage::setText;
+        // Messages come from the background threads as well, like the loading, the import and the export.
+        Helpers.messageHandler = value -> SwingUtilities.invokeLater(() -> lblMessage.setText(value));
         add(lblMessage, "span, pushx, growx");
     }
 
@@ -0,0 +1,170 @@
+import java.util.Collection;
+
+/**
+ * Registry of the passengers, by their ids.
+ * This is an open addressing hash map with primitive long keys and linear probing, hence looking up a passenger
+ * neither boxes the id nor allocates anything.
+ */
+public class PassengerRegistry {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private Passenger[] values;
+    private int size, mask;
+    private Passenger zeroKeyValue;
+
+    /**
+     * Instantiates a new Passenger registry.
+     */
+    public PassengerRegistry() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Passenger[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Gets a passenger by id.
+     *
+     * @param id ID of the passenger.
+     * @return The passenger if registered, null otherwise.
+     */
+    public synchronized Passenger get(long id) {
+        if (id == 0) return zeroKeyValue;
+
+        for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+            long key = keys[i];
+            if (key == id) return values[i];
+            if (key == 0) return null;
+        }
+    }
+
+    /**
+     * Checks whether a passenger is registered with the id.
+     *
+     * @param id ID of the passenger.
+     * @return True if registered.
+     */
+    public boolean contains(long id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Registers a passenger, if there is no passenger registered with the same id.
+     *
+     * @param passenger Passenger to register.
+     * @return True if registered, false if the id was already registered.
+     */
+    public synchronized boolean register(Passenger passenger) {
+        long id = passenger.getId();
+        if (id == 0) {
+            if (zeroKeyValue != null) return false;
+            zeroKeyValue = passenger;
+            size++;
+            return true;
+        }
+
+        int i = hash(id) & mask;
+        for (long key; (key = keys[i]) != 0; i = (i + 1) & mask) {
+            if (key == id) return false;
+        }
+
+        keys[i] = id;
+        values[i] = passenger;
+        if (++size * 2 > keys.length) rehash(keys.length * 2);
+        return true;
+    }
+
+    /**
+     * Registers all the passengers which are not registered yet.
+     *
+     * @param passengers Passengers to register.
+     */
+    public synchronized void registerAll(Collection<Passenger> passengers) {
+        if (passengers == null) return;
+        for (Passenger passenger : passengers) {
+            if (passenger != null) register(passenger);
+        }
+    }
+
+    /**
+     * Removes a passenger from the registry.
+     *
+     * @param id ID of the passenger.
+     * @return The removed passenger, or null if there was not.
+     */
+    public synchronized Passenger remove(long id) {
+        if (id == 0) {
+            Passenger removed = zeroKeyValue;
+            if (removed != null) size--;
+            zeroKeyValue = null;
+            return removed;
+        }
+
+        int i = hash(id) & mask;
+        for (long key; (key = keys[i]) != id; i = (i + 1) & mask) {
+            if (key == 0) return null;
+        }
+
+        Passenger removed = values[i];
+        size--;
+
+        // Shifts the following entries back, so that no probe sequence is broken by the removal.
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+
+        keys[i] = 0;
+        values[i] = null;
+        return removed;
+    }
+
+    /**
+     * Gets the number of the registered passengers.
+     *
+     * @return The number of the passengers.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the passengers from the registry.
+     */
+    public synchronized void clear() {
+        allocate(INITIAL_CAPACITY);
+        zeroKeyValue = null;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Passenger[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) continue;
+
+            int j = hash(key) & mask;
+            while (keys[j] != 0) j = (j + 1) & mask;
+            keys[j] = key;
+            values[j] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Write-behind persistence of the tickets.
+ * Sales and cancellations are queued and written to the journal by a background thread, hence the callers, like the
+ * Swing event thread, never wait for the disk. Repeated writes of the same ticket, waiting in the queue, are coalesced
+ * into the latest one, and the queued writes are committed to the journal in batches, sharing a single fsync.
+ * The queue is bounded, thus the callers wait if the disk falls too far behind.
+ */
+public class PersistenceService {
+    private static final int BATCH_SIZE = 512;
+
+    private final TicketJournal journal;
+    private final int capacity;
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+    private final ArrayList<PendingWrite> inFlight = new ArrayList<>();
+    private final Thread worker;
+    private boolean isShutdown = false;
+
+    /**
+     * Instantiates a new Persistence service.
+     *
+     * @param journal  Journal to write to.
+     * @param capacity Maximum number of the writes waiting in the queue.
+     */
+    public PersistenceService(TicketJournal journal, int capacity) {
+        this.journal = journal;
+        this.capacity = capacity;
+
+        worker = new Thread(this::run, "ticket-persistence");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues a sale of the ticket.
+     *
+     * @param ticket Sold ticket.
+     * @return A future, completed with true when the sale is durable.
+     */
+    public CompletableFuture<Boolean> save(Ticket ticket) {
+        return submit(ticket, false);
+    }
+
+    /**
+     * Queues a cancellation of the ticket.
+     *
+     * @param ticket Cancelled ticket.
+     * @return A future, completed with true when the cancellation is durable.
+     */
+    public CompletableFuture<Boolean> cancel(Ticket ticket) {
+        return submit(ticket, true);
+    }
+
+    private synchronized CompletableFuture<Boolean> submit(Ticket ticket, boolean isCancel) {
+        PendingWrite write = pending.get(ticket.getId());
+        if (write == null) {
+            try {
+                while (pending.size() >= capacity && !isShutdown) wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CompletableFuture<Boolean> future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+                return future;
+            }
+
+            if (isShutdown) {
+                CompletableFuture<Boolean> future = new CompletableFuture<>();
+                future.completeExceptionally(new IllegalStateException("Persistence service is shut down"));
+                return future;
+            }
+
+            write = new PendingWrite();
+            pending.put(ticket.getId(), write);
+            notifyAll();
+        }
+
+        write.ticket = ticket;
+        write.isCancel = isCancel;
+        return write.future;
+    }
+
+    /**
+     * Gets a future, completed when all the writes queued so far are written.
+     *
+     * @return The future.
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        ArrayList<CompletableFuture<Boolean>> futures = new ArrayList<>(pending.size() + inFlight.size());
+        for (PendingWrite write : inFlight) futures.add(write.future);
+        for (PendingWrite write : pending.values()) futures.add(write.future);
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Stops accepting writes and waits until the queued writes are written.
+     *
+     * @param timeout Maximum time to wait, in milliseconds.
+     */
+    public void shutdown(long timeout) {
+        synchronized (this) {
+            isShutdown = true;
+            notifyAll();
+        }
+
+        try {
+            worker.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            ArrayList<Ticket> sales = new ArrayList<>();
+            ArrayList<String> cancelledIds = new ArrayList<>();
+
+            synchronized (this) {
+                inFlight.clear();
+                try {
+                    while (pending.isEmpty() && !isShutdown) wait();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                if (pending.isEmpty()) return;
+
+                Iterator<PendingWrite> iterator = pending.values().iterator();
+                while (iterator.hasNext() && inFlight.size() < BATCH_SIZE) {
+                    PendingWrite write = iterator.next();
+                    iterator.remove();
+                    inFlight.add(write);
+
+                    if (write.isCancel) cancelledIds.add(write.ticket.getId());
+                    else sales.add(write.ticket);
+                }
+
+                notifyAll();
+            }
+
+            try {
+                journal.append(sales, cancelledIds);
+                for (PendingWrite write : inFlight) write.future.complete(true);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                for (PendingWrite write : inFlight) write.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static class PendingWrite {
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private Ticket ticket;
+        private boolean isCancel;
+    }
+}
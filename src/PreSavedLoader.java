@@ -0,0 +1,189 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loader of the buses and tickets saved as separate files.
+ * The root folder is listed once, and the files are read and parsed in parallel on a fork-join pool, then merged into
+ * concurrent hash maps. The time spent on reading (I/O), parsing and merging is measured separately, summed over all
+ * the worker threads.
+ */
+public class PreSavedLoader {
+    private static final int FILES_PER_TASK = 32;
+
+    private final ArrayList<Path> busFiles = new ArrayList<>(), ticketFiles = new ArrayList<>();
+    private final LongAdder ioNanos = new LongAdder(), parseNanos = new LongAdder(), mergeNanos = new LongAdder();
+    private final AtomicInteger loadedFileCount = new AtomicInteger();
+    private final long listNanos;
+    private long wallNanos;
+    private Action<Integer> onProgress;
+
+    private PreSavedLoader(Path folder) throws IOException {
+        long start = System.nanoTime();
+        if (Files.isDirectory(folder)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    if (name.startsWith("bus-") && name.endsWith(".bus")) busFiles.add(path);
+                    else if (name.startsWith("ticket-") && name.endsWith(".ticket")) ticketFiles.add(path);
+                }
+            }
+        }
+
+        listNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Lists the saved files of a folder.
+     *
+     * @param folder Folder to list.
+     * @return The loader of the listed files.
+     * @throws IOException If the folder could not be listed.
+     */
+    public static PreSavedLoader scan(File folder) throws IOException {
+        return new PreSavedLoader(folder.toPath());
+    }
+
+    /**
+     * Sets a progress listener, which is called with the number of the files loaded so far.
+     *
+     * @param onProgress An action with the loaded file count.
+     */
+    public void setOnProgressListener(Action<Integer> onProgress) {
+        this.onProgress = onProgress;
+    }
+
+    /**
+     * Gets the total number of the listed files.
+     *
+     * @return The number of the files.
+     */
+    public int getFileCount() {
+        return busFiles.size() + ticketFiles.size();
+    }
+
+    /**
+     * Loads the bus files, by their journey keys.
+     *
+     * @return The loaded buses.
+     */
+    public ConcurrentHashMap<JourneyKey, Bus> loadBuses() {
+        ConcurrentHashMap<JourneyKey, Bus> buses = new ConcurrentHashMap<>();
+        load(busFiles, bytes -> {
+            Bus bus = Helpers.JSON_MAPPER.readValue(bytes, Bus.class);
+            bus.internLocations();
+            return bus;
+        }, (path, bus) -> buses.putIfAbsent(bus.getKey(), bus));
+
+        return buses;
+    }
+
+    /**
+     * Loads the ticket files, by their ids.
+     *
+     * @param loadedFiles A queue to add the files which are loaded successfully.
+     * @return The loaded tickets.
+     */
+    public ConcurrentHashMap<String, Ticket> loadTickets(ConcurrentLinkedQueue<Path> loadedFiles) {
+        ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+        load(ticketFiles, Ticket::fromJson, (path, ticket) -> {
+            tickets.putIfAbsent(ticket.getId(), ticket);
+            loadedFiles.add(path);
+        });
+
+        return tickets;
+    }
+
+    private <T> void load(ArrayList<Path> files, Parser<T> parser, Merger<T> merger) {
+        if (files.isEmpty()) return;
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invoke(new LoadTask<>(files, 0, files.size(), parser, merger));
+        } finally {
+            pool.shutdown();
+        }
+
+        wallNanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Loaded %d files in %d ms (listing %d ms, I/O %d ms, parse %d ms, merge %d ms over all threads)",
+                loadedFileCount.get(),
+                (listNanos + wallNanos) / 1000000,
+                listNanos / 1000000,
+                ioNanos.sum() / 1000000,
+                parseNanos.sum() / 1000000,
+                mergeNanos.sum() / 1000000
+        );
+    }
+
+    private interface Parser<T> {
+        T parse(byte[] bytes) throws IOException;
+    }
+
+    private interface Merger<T> {
+        void merge(Path path, T value);
+    }
+
+    private class LoadTask<T> extends RecursiveAction {
+        private final ArrayList<Path> files;
+        private final int from, to;
+        private final Parser<T> parser;
+        private final Merger<T> merger;
+
+        LoadTask(ArrayList<Path> files, int from, int to, Parser<T> parser, Merger<T> merger) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+            this.merger = merger;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > FILES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new LoadTask<>(files, from, middle, parser, merger),
+                        new LoadTask<>(files, middle, to, parser, merger)
+                );
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                Path path = files.get(i);
+                try {
+                    long start = System.nanoTime();
+                    byte[] bytes = Files.readAllBytes(path);
+                    long read = System.nanoTime();
+                    T value = parser.parse(bytes);
+                    long parsed = System.nanoTime();
+                    if (value != null) merger.merge(path, value);
+
+                    ioNanos.add(read - start);
+                    parseNanos.add(parsed - read);
+                    mergeNanos.add(System.nanoTime() - parsed);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                int count = loadedFileCount.incrementAndGet();
+                Action<Integer> listener = onProgress;
+                if (listener != null && count % 256 == 0) listener.call(count);
+            }
+        }
+    }
+}
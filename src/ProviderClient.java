@@ -0,0 +1,237 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP client of the ticket provider, and of the booking server when the client runs against one.
+ * Requests run on a shared executor, on virtual threads if the JDK supports them and on a fixed pool of daemon threads
+ * otherwise, and at most a given number of the requests are in flight at once. The connections are kept alive and
+ * reused by the HTTP handler of the JDK, since every response is read fully and its stream is closed. How many idle
+ * connections it keeps per host is set once for the whole JVM, by the http.maxConnections system property, which
+ * {@link MainFrame#main(String[])} sets at the start.
+ */
+public class ProviderClient {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final String baseUrl;
+    private final int connectTimeout, readTimeout;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    /**
+     * Instantiates a new Provider client.
+     *
+     * @param baseUrl        Base URL of the provider, which the request paths are appended to.
+     * @param maxConcurrency Maximum number of the requests in flight at once.
+     * @param connectTimeout Connection timeout, in milliseconds.
+     * @param readTimeout    Read timeout, in milliseconds.
+     */
+    public ProviderClient(String baseUrl, int maxConcurrency, int connectTimeout, int readTimeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = createExecutor("provider", maxConcurrency);
+    }
+
+    /**
+     * Creates an executor of the blocking I/O tasks, running each task on a virtual thread if the JDK supports them,
+     * and on a fixed pool of daemon threads otherwise.
+     *
+     * @param name        Name prefix of the pool threads.
+     * @param threadCount Number of the pool threads, if virtual threads are not supported.
+     * @return The executor.
+     */
+    static ExecutorService createExecutor(String name, int threadCount) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(threadCount, runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Posts a form to the provider asynchronously.
+     *
+     * @param path Path of the request, relative to the base URL.
+     * @param form Form fields to post, may be null.
+     * @return A future, completed with the response body.
+     */
+    public CompletableFuture<byte[]> post(String path, Map<String, String> form) {
+        return send("POST", path, "application/x-www-form-urlencoded; charset=UTF-8", encodeForm(form)).thenApply(response -> {
+            if (!response.isSuccessful()) {
+                throw new ProviderException(path, new IOException("Provider responded " + response.getStatus() + " to " + path));
+            }
+
+            return response.getBody();
+        });
+    }
+
+    /**
+     * Sends a request asynchronously. Unlike posting a form, the responses with an error status complete the future
+     * normally, so that the caller can tell them apart.
+     *
+     * @param method      HTTP method of the request.
+     * @param path        Path of the request, relative to the base URL.
+     * @param contentType Content type of the body, may be null if there is no body.
+     * @param body        Body of the request, may be null.
+     * @return A future, completed with the response.
+     */
+    public CompletableFuture<Response> send(String method, String path, String contentType, byte[] body) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+
+            try {
+                return execute(method, path, contentType, body);
+            } catch (IOException e) {
+                throw new ProviderException(path, e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private Response execute(String method, String path, String contentType, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("User-Agent", "Mozilla");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        if (body != null && body.length > 0) {
+            if (contentType != null) connection.setRequestProperty("Content-Type", contentType);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body);
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (input == null) return new Response(status, new byte[0]);
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) input = new GZIPInputStream(input, BUFFER_SIZE);
+
+        try (InputStream stream = input) {
+            return new Response(status, readFully(stream));
+        }
+    }
+
+    /**
+     * Encodes form fields as in a URL query.
+     *
+     * @param form Form fields, may be null.
+     * @return The encoded fields.
+     */
+    static byte[] encodeForm(Map<String, String> form) {
+        if (form == null || form.isEmpty()) return new byte[0];
+
+        StringBuilder builder = new StringBuilder();
+        try {
+            for (Map.Entry<String, String> entry : form.entrySet()) {
+                if (builder.length() > 0) builder.append('&');
+                builder.append(URLEncoder.encode(entry.getKey(), "UTF-8"))
+                        .append('=')
+                        .append(URLEncoder.encode(entry.getValue(), "UTF-8"));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+        return output.toByteArray();
+    }
+
+    /**
+     * Stops accepting requests. The requests in flight are completed.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Response of a request.
+     */
+    public static class Response {
+        private final int status;
+        private final byte[] body;
+
+        Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * Gets the HTTP status of the response.
+         *
+         * @return The status code.
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Checks whether the status is a success.
+         *
+         * @return True if the status is 2xx.
+         */
+        public boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+
+        /**
+         * Gets the body of the response.
+         *
+         * @return The body, decompressed if it was compressed.
+         */
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * Unchecked wrapper of the I/O errors of the provider requests, to complete the futures with.
+     */
+    public static class ProviderException extends RuntimeException {
+        /**
+         * Instantiates a new Provider exception.
+         *
+         * @param path  Path of the failed request.
+         * @param cause I/O error of the request.
+         */
+        public ProviderException(String path, IOException cause) {
+            super("Provider request to " + path + " failed", cause);
+        }
+    }
+}
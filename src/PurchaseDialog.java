@@ -18,6 +18,8 @@ public class PurchaseDialog extends JDialog {
     private Bus bus;
     private Ticket ticket;
     private Passenger passenger;
+    private SeatHold seatHold;
+    private boolean isPurchasing = false;
 
     private JCheckBox cbHasBaggage, cbIsMale;
     private JFormattedTextField tfpName, tfpSurname, tfpPhone, tfpId, tfpBaggageWeight;
@@ -55,6 +57,15 @@ public class PurchaseDialog extends JDialog {
         initLayout();
     }
 
+    /**
+     * Sets the hold of the seat, which is sold by the purchase.
+     *
+     * @param seatHold Hold of the seat.
+     */
+    public void setSeatHold(SeatHold seatHold) {
+        this.seatHold = seatHold;
+    }
+
     /**
      * Sets a result listener.
      *
@@ -64,6 +75,13 @@ public class PurchaseDialog extends JDialog {
         this.onResultListener = onPurchasedListener;
     }
 
+    private void setPurchasing(boolean value) {
+        isPurchasing = value;
+        btnOk.setEnabled(!value);
+        btnCancel.setEnabled(!value);
+        setDefaultCloseOperation(value ? WindowConstants.DO_NOTHING_ON_CLOSE : WindowConstants.HIDE_ON_CLOSE);
+    }
+
     private void initComponents() {
         MaskFormatter formatter = null;
 
@@ -145,7 +163,13 @@ public class PurchaseDialog extends JDialog {
         add(btnOk, "gapleft push, wrap");
     }
 
-    private boolean isIdentifierValid(long id) {
+    /**
+     * Checks whether a number is a valid TC identity number, by its length and its check digits.
+     *
+     * @param id Number to check.
+     * @return True if valid.
+     */
+    static boolean isIdentifierValid(long id) {
         byte[] digits = Helpers.getDigits(id);
         if (digits.length != 11) return false;
 
@@ -162,7 +186,7 @@ public class PurchaseDialog extends JDialog {
         int lastDigit = total % 10;
 
         if (lastDigit == digits[10]) {
-            int check = (totalOdd * 7 - totalEven) % 10;
+            int check = Math.floorMod(totalOdd * 7 - totalEven, 10);
             return digits[9] == check;
         }
 
@@ -177,6 +201,9 @@ public class PurchaseDialog extends JDialog {
 
             @Override
             public void windowClosing(WindowEvent e) {
+                // The hold must be kept until the purchase in progress completes.
+                if (isPurchasing) return;
+
                 Action<Ticket> listener = PurchaseDialog.this.onResultListener;
                 if (listener == null) return;
                 listener.call(ticket);
@@ -239,14 +266,14 @@ public class PurchaseDialog extends JDialog {
                 ticket.setSeatNumber(seat);
             }
 
-            if (passenger == null) {
+            boolean isNewPassenger = passenger == null;
+            if (isNewPassenger) {
                 passenger = new Passenger();
                 passenger.setId(Long.parseLong(tfpId.getText()));
                 passenger.setName(tfpName.getText());
                 passenger.setSurname(tfpSurname.getText());
                 passenger.setPhone(tfpPhone.getText());
                 passenger.setMale(cbIsMale.isSelected());
-                bus.getPassengers().add(passenger);
                 ticket.setOwner(passenger);
             }
 
@@ -257,10 +284,32 @@ public class PurchaseDialog extends JDialog {
                 ticket.setBaggage(baggage);
             }
 
-            boolean result = ticket.trySave();
-            if (onResultListener != null) onResultListener.call(ticket);
-            Helpers.addTicket(ticket);
-            this.dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+            // The owner is one of the passengers of the bus, so that the ticket carries it when sent to the server.
+            if (isNewPassenger) bus.addPassenger(passenger);
+
+            Ticket purchased = ticket;
+            setPurchasing(true);
+            Helpers.booking.purchase(purchased, seatHold).whenComplete((isPurchased, error) -> SwingUtilities.invokeLater(() -> {
+                setPurchasing(false);
+                if (error != null || !isPurchased) {
+                    if (isNewPassenger) bus.removePassenger(passenger);
+                    this.ticket = null;
+
+                    if (error != null) {
+                        error.printStackTrace();
+                        showError("Ticket could not be purchased, please try again", "Purchase Error");
+                    } else {
+                        // Another sale has taken the seat meanwhile.
+                        showError("Seat " + seat + " has just been sold, please choose another seat", "Seat Taken");
+                    }
+
+                    this.dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+                    return;
+                }
+
+                if (onResultListener != null) onResultListener.call(purchased);
+                this.dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+            }));
         });
 
         cbHasBaggage.addActionListener(e -> tfpBaggageWeight.setVisible(cbHasBaggage.isSelected()));
@@ -0,0 +1,147 @@
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Booking operations on a booking server, shared by many agents.
+ * The store of this process mirrors the tickets of the server: it is filled by listing them at the start, the
+ * purchases and cancellations are mirrored once the server accepts them, and the seats sold through the server are
+ * set again whenever their journeys are searched. The server decides which purchase gets a seat, hence a seat sold by
+ * another agent meanwhile is reported as taken.
+ * <p>
+ * The seat holds are per process: a hold keeps the seat from the other purchases of this process while its dialog is
+ * open, but it is never sent to the server. Hence a seat held by another agent is shown as free here, and it can be
+ * bought here, in which case the purchase of the other agent is reported as taken.
+ */
+public class RemoteBookingService implements BookingService {
+    private static final String JSON = "application/json; charset=UTF-8";
+
+    private final ProviderClient client;
+
+    /**
+     * Instantiates a new Remote booking service.
+     *
+     * @param client Client of the booking server.
+     */
+    public RemoteBookingService(ProviderClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<Bus>> searchJourneys(Location from, Location to, Date date) {
+        LinkedHashMap<String, String> query = new LinkedHashMap<>();
+        query.put("from", from.getHtmlValue());
+        query.put("fromName", from.getName());
+        query.put("to", to.getHtmlValue());
+        query.put("toName", to.getName());
+        query.put("date", DateCodec.formatIso(date));
+        String path = "journeys?" + new String(ProviderClient.encodeForm(query), StandardCharsets.UTF_8);
+
+        return client.send("GET", path, null, null).thenApply(response -> {
+            check(response, path);
+
+            JSONArray array = new JSONArray(new String(response.getBody(), StandardCharsets.UTF_8));
+            ArrayList<Bus> buses = new ArrayList<>(array.length());
+            for (int i = 0, limit = array.length(); i < limit; i++) {
+                JSONObject journey = array.getJSONObject(i);
+                Bus bus = parseBus(journey.getJSONObject("bus"));
+
+                SeatOccupancy occupancy = Helpers.tickets.getOccupancy(bus);
+                occupancy.setProviderSoldCount(bus.getSoldSeat());
+                // Rebuilt rather than added to, so that the seats cancelled by the other agents are freed as well.
+                JSONArray soldSeats = journey.getJSONArray("soldSeats");
+                BitSet sold = new BitSet(bus.getSeatNumber() + 1);
+                for (int j = 0, seatLimit = soldSeats.length(); j < seatLimit; j++) sold.set(soldSeats.getInt(j));
+                occupancy.resetSold(sold);
+
+                buses.add(bus);
+            }
+
+            return buses;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> purchase(Ticket ticket, SeatHold hold) {
+        byte[] body = ticket.toJson().toString().getBytes(StandardCharsets.UTF_8);
+        return client.send("POST", "tickets", JSON, body).thenApply(response -> {
+            if (response.getStatus() == 409) {
+                // Sold by another agent, which this process has not seen yet.
+                if (hold != null) Helpers.seatHolds.release(hold);
+                Helpers.tickets.getOccupancy(ticket.getBus()).markSold(ticket.getSeatNumber());
+                return false;
+            }
+
+            check(response, "tickets");
+            Helpers.addTicket(ticket, hold);
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancel(Ticket ticket) {
+        String path = "tickets/" + encode(ticket.getId());
+        return client.send("DELETE", path, null, null).thenApply(response -> {
+            if (response.getStatus() == 404) return false;
+
+            check(response, path);
+            Ticket stored = Helpers.tickets.get(ticket.getId());
+            if (stored != null) Helpers.removeTicket(stored);
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<Ticket>> listTickets() {
+        return client.send("GET", "tickets", null, null).thenApply(response -> {
+            check(response, "tickets");
+
+            ArrayList<Ticket> tickets = new ArrayList<>();
+            try (JsonParser parser = Helpers.JSON_MAPPER.getJsonFactory().createJsonParser(response.getBody())) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) throw new IOException("Not an array of tickets");
+                while (parser.nextToken() == JsonToken.START_OBJECT) tickets.add(Ticket.fromJson(parser));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+
+            return tickets;
+        });
+    }
+
+    private static Bus parseBus(JSONObject object) {
+        try {
+            Bus bus = Helpers.JSON_MAPPER.readValue(object.toString(), Bus.class);
+            bus.internLocations();
+            if (bus.getPassengers() == null) bus.setPassengers(new ArrayList<>());
+            return bus;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void check(ProviderClient.Response response, String path) {
+        if (!response.isSuccessful()) {
+            throw new ProviderClient.ProviderException(path, new IOException("Booking server responded " + response.getStatus()));
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,16 +4,15 @@ import javax.swing.*;
 import javax.swing.table.TableColumnModel;
 import java.awt.*;
 import java.awt.event.ItemEvent;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 
 /**
  * The type Search panel.
  */
 public class SearchPanel extends JPanel {
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd.MM.yyyy HH:mm");
     private static Calendar CALENDAR = Calendar.getInstance();
     private static String[] MONTHS = new String[]{
             "January", "February", "March", "April", "May", "June",
@@ -22,7 +21,7 @@ public class SearchPanel extends JPanel {
     private JComboBox<Location> comboFrom, comboTo;
     private ArrayList<Location> locations;
     private JTable tableAvailableBuses;
-    private ReadOnlyTableModel model;
+    private JourneyTableModel model;
     private JButton btnSearch;
     private JCheckBox checkBothWay;
     private Location from, to;
@@ -70,9 +69,7 @@ public class SearchPanel extends JPanel {
         comboFrom.setEnabled(false);
         comboTo.setEnabled(false);
 
-        model = new ReadOnlyTableModel(new Object[]{
-                "Route", "Price", "Movement Date", "Landing Date", "Remaining Seat"
-        }, 0);
+        model = new JourneyTableModel();
 
         tableAvailableBuses = new JTable(model);
         tableAvailableBuses.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -184,30 +181,22 @@ public class SearchPanel extends JPanel {
 
             setEnabledConditions(false);
             isRemovingBuses = true;
-            while (model.getRowCount() > 0) model.removeRow(0);
+            model.clear();
             busPanel.setBus(null);
 
-            Helpers.getJourneyList(ticket, buses -> {
-                buses.sort(Bus::compareTo);
-
-                for (Bus bus : buses) {
-                    String priceStr = String.valueOf(bus.getPrice());
-                    if (((int) bus.getPrice()) == bus.getPrice()) {
-                        priceStr = String.valueOf((int) bus.getPrice());
-                    }
-
-                    model.addRow(new Object[]{
-                            bus,
-                            priceStr + " TL",
-                            DATE_FORMAT.format(bus.getMovementDate()),
-                            DATE_FORMAT.format(bus.getLandingDate()),
-                            (bus.getRemainingSeatNumber())
-                    });
+            Helpers.booking.searchJourneys(ticket.getFrom(), ticket.getTo(), ticket.getDate()).whenComplete((buses, error) -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    Helpers.message("Journeys could not be searched");
+                } else {
+                    buses.sort(Bus::compareTo);
+                    model.setBuses(buses);
                 }
 
-                isRemovingBuses = false;
-
-                setEnabledConditions(true);
+                SwingUtilities.invokeLater(() -> {
+                    isRemovingBuses = false;
+                    setEnabledConditions(true);
+                });
             });
         });
 
@@ -216,10 +205,12 @@ public class SearchPanel extends JPanel {
         final boolean[] checker = new boolean[]{false};
         selectionModel.addListSelectionListener(e -> {
             if (e.getValueIsAdjusting() || checker[0] || model.getRowCount() == 0 || isRemovingBuses) return;
+            int index = tableAvailableBuses.getSelectedRow();
+            if (index < 0) return;
+
             try {
                 checker[0] = true;
-                int index = tableAvailableBuses.getSelectedRow();
-                Bus bus = (Bus) model.getValueAt(index, 0);
+                Bus bus = model.getBus(index);
                 if (onBusSelectedListeners != null) onBusSelectedListeners.forEach(it -> it.call(bus));
                 checker[0] = false;
             } catch (Exception ex) {
@@ -227,9 +218,22 @@ public class SearchPanel extends JPanel {
             }
         });
 
+        Helpers.addOnTicketsSavedListener(tickets -> {
+            // The tickets of an import share few journeys, hence the rows are scanned once for all of them.
+            HashSet<JourneyKey> keys = new HashSet<>();
+            for (Ticket ticket : tickets) {
+                if (ticket.getBus() != null) keys.add(ticket.getBus().getKey());
+            }
+
+            model.fireRemainingSeatChanged(keys);
+        });
+
+        Helpers.addOnTicketRemoveListener(ticket -> {
+            if (ticket.getBus() != null) model.fireRemainingSeatChanged(ticket.getBus().getKey());
+        });
+
         Helpers.addOnLocationConditionChangedListener(cond -> {
-            if (from.getName().split(" ")[0].equals(to.getName().split(" ")[0]))
-                while (model.getRowCount() > 0) model.removeRow(0);
+            if (from.getName().split(" ")[0].equals(to.getName().split(" ")[0])) model.clear();
             comboTo.removeAllItems();
             ArrayList<String> places = cond ? new ArrayList<>() : null;
 
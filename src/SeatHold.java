@@ -0,0 +1,115 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Temporary hold of a seat for a sale in progress.
+ * A hold ends exactly once, by being sold, released or expired, hence the seat is changed only by the one which ends
+ * it, and never after another sale or hold has taken the seat.
+ */
+public class SeatHold {
+    private static final int ACTIVE = 0, ENDED = 1;
+
+    private final JourneyKey journeyKey;
+    private final SeatOccupancy occupancy;
+    private final int seat;
+    private final long expiresAt;
+    private final AtomicInteger state = new AtomicInteger(ACTIVE);
+    private HashedWheelTimer.Timeout timeout;
+
+    /**
+     * Instantiates a new Seat hold, of a seat held on its occupancy already.
+     *
+     * @param journeyKey Key of the journey.
+     * @param occupancy  Seat occupancy of the journey.
+     * @param seat       Seat number, starting from 1.
+     * @param expiresAt  Time of the expiry, in milliseconds since the epoch.
+     */
+    SeatHold(JourneyKey journeyKey, SeatOccupancy occupancy, int seat, long expiresAt) {
+        this.journeyKey = journeyKey;
+        this.occupancy = occupancy;
+        this.seat = seat;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the key of the journey.
+     *
+     * @return The journey key.
+     */
+    public JourneyKey getJourneyKey() {
+        return journeyKey;
+    }
+
+    /**
+     * Gets the held seat.
+     *
+     * @return Seat number, starting from 1.
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Gets the time of the expiry.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Checks whether the hold has not been sold, released or expired yet.
+     *
+     * @return True if the seat is still held.
+     */
+    public boolean isActive() {
+        return state.get() == ACTIVE;
+    }
+
+    /**
+     * Checks whether the hold is of a ticket's seat.
+     *
+     * @param ticket Ticket to check.
+     * @return True if the ticket is of the held seat.
+     */
+    boolean isOf(Ticket ticket) {
+        return ticket.getBus() != null && ticket.getSeatNumber() == seat && ticket.getBus().getKey().equals(journeyKey);
+    }
+
+    void setTimeout(HashedWheelTimer.Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sells the held seat, ending the hold.
+     *
+     * @return True if sold, false if the hold has ended already.
+     */
+    boolean trySell() {
+        if (!end()) return false;
+        return occupancy.sellHeld(seat);
+    }
+
+    /**
+     * Releases the held seat, ending the hold.
+     *
+     * @return True if released, false if the hold has ended already.
+     */
+    boolean tryRelease() {
+        if (!end()) return false;
+        return occupancy.releaseHeld(seat);
+    }
+
+    private boolean end() {
+        if (!state.compareAndSet(ACTIVE, ENDED)) return false;
+
+        HashedWheelTimer.Timeout timeout = this.timeout;
+        if (timeout != null) timeout.cancel();
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return journeyKey + " #" + seat;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Temporary holds of the seats whose sales are in progress.
+ * A seat is held when an agent starts selling it, so no one else can sell it meanwhile, and it is released when the
+ * sale is cancelled, or when the hold expires. The expiries are driven by a hashed wheel timer, hence holding and
+ * releasing a seat take a constant time regardless of the number of the holds.
+ * The holds are kept in this process only, hence against a booking server they do not keep the other agents off a
+ * seat, see {@link RemoteBookingService}.
+ */
+public class SeatHoldService {
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 512;
+
+    private final TicketStore store;
+    private final long ttlMillis;
+    private final Action<SeatHold> onChanged;
+    private final HashedWheelTimer timer = new HashedWheelTimer("seat-hold-timer", TICK_MILLIS, WHEEL_SIZE);
+
+    /**
+     * Instantiates a new Seat hold service.
+     *
+     * @param store     Store of the tickets, whose seat occupancies are held.
+     * @param ttlMillis Duration of a hold, in milliseconds.
+     * @param onChanged An action with the hold, called when a seat is held, released or expired. Expiries call it on
+     *                  the thread of the timer.
+     */
+    public SeatHoldService(TicketStore store, long ttlMillis, Action<SeatHold> onChanged) {
+        this.store = store;
+        this.ttlMillis = ttlMillis;
+        this.onChanged = onChanged;
+    }
+
+    /**
+     * Holds a free seat of a journey.
+     *
+     * @param bus  Bus of the journey.
+     * @param seat Seat number, starting from 1.
+     * @return The hold, or null if the seat is held or sold already.
+     */
+    public SeatHold tryHold(Bus bus, int seat) {
+        SeatOccupancy occupancy = store.getOccupancy(bus);
+        if (!occupancy.tryHold(seat)) return null;
+
+        SeatHold hold = new SeatHold(bus.getKey(), occupancy, seat, System.currentTimeMillis() + ttlMillis);
+        hold.setTimeout(timer.schedule(() -> release(hold), ttlMillis));
+        if (onChanged != null) onChanged.call(hold);
+        return hold;
+    }
+
+    /**
+     * Releases a seat hold, unless it has been sold or released already.
+     *
+     * @param hold Hold to release.
+     * @return True if released.
+     */
+    public boolean release(SeatHold hold) {
+        if (!hold.tryRelease()) return false;
+
+        if (onChanged != null) onChanged.call(hold);
+        return true;
+    }
+
+    /**
+     * Gets the duration of a hold.
+     *
+     * @return The duration in milliseconds.
+     */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Stops the expiries. The seats held remain held.
+     */
+    public void shutdown() {
+        timer.stop();
+    }
+}
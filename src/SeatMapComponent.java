@@ -0,0 +1,211 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Seat map of a journey, painted directly from its seat occupancy.
+ * The seats are laid out as rows of two pairs with an aisle between them. Switching to another journey only replaces
+ * the occupancy, and a change of a seat repaints only its cell. The seats held for the sales in progress are drawn
+ * with a dashed border.
+ */
+public class SeatMapComponent extends JComponent {
+    private static final int CELL_WIDTH = 40, CELL_HEIGHT = 26, GAP = 6, AISLE = 24, PADDING = 8;
+    private static final Color FREE_COLOR = Color.WHITE;
+    private static final Color UNKNOWN_OWNER_COLOR = Color.LIGHT_GRAY;
+    private static final Color HELD_COLOR = new Color(255, 224, 140);
+    private static final Stroke HELD_STROKE = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND, 10, new float[]{3, 3}, 0);
+    private static final Color BORDER_COLOR = new Color(0, 0, 0, 60);
+    private static final Color SOLD_BORDER_COLOR = new Color(0, 0, 0, 140);
+
+    private JourneyKey key;
+    private SeatOccupancy occupancy;
+    private Color[] ownerColors;
+    private int pendingSeat;
+    private Action<Integer> onSeatClicked;
+
+    /**
+     * Instantiates a new Seat map component.
+     */
+    public SeatMapComponent() {
+        setOpaque(false);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int seat = seatAt(e.getX(), e.getY());
+                if (seat == 0 || onSeatClicked == null || !occupancy.isFree(seat)) return;
+                onSeatClicked.call(seat);
+            }
+        });
+    }
+
+    /**
+     * Shows the seats of a journey.
+     *
+     * @param key       Key of the journey, or null to show nothing.
+     * @param occupancy Seat occupancy of the journey.
+     */
+    public void setJourney(JourneyKey key, SeatOccupancy occupancy) {
+        this.key = key;
+        this.occupancy = key == null ? null : occupancy;
+        this.ownerColors = key == null ? null : new Color[occupancy.getSeatCount() + 1];
+        this.pendingSeat = 0;
+
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Gets the key of the journey shown.
+     *
+     * @return The journey key, or null if nothing is shown.
+     */
+    public JourneyKey getJourneyKey() {
+        return key;
+    }
+
+    /**
+     * Sets the color of a seat sold through the system, which is the color of its owner, and repaints the seat.
+     *
+     * @param seat  Seat number, starting from 1.
+     * @param color Color of the owner, or null if the seat is not sold anymore.
+     */
+    public void setOwnerColor(int seat, Color color) {
+        if (ownerColors == null || seat < 1 || seat >= ownerColors.length) return;
+        ownerColors[seat] = color;
+        repaintSeat(seat);
+    }
+
+    /**
+     * Sets the seat which is being sold at the moment, to highlight it.
+     *
+     * @param seat Seat number, starting from 1, or zero to clear.
+     */
+    public void setPendingSeat(int seat) {
+        int previous = pendingSeat;
+        pendingSeat = seat;
+        repaintSeat(previous);
+        repaintSeat(seat);
+    }
+
+    /**
+     * Sets the listener of the clicks on the free seats.
+     *
+     * @param action An action with the clicked seat number.
+     */
+    public void setOnSeatClickedListener(Action<Integer> action) {
+        onSeatClicked = action;
+    }
+
+    /**
+     * Repaints the cell of a seat.
+     *
+     * @param seat Seat number, starting from 1.
+     */
+    public void repaintSeat(int seat) {
+        if (occupancy == null || seat < 1 || seat > occupancy.getSeatCount()) return;
+        repaint(cellX(seat), cellY(seat), CELL_WIDTH + 1, CELL_HEIGHT + 1);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet() || occupancy == null) return super.getPreferredSize();
+
+        int rows = (occupancy.getSeatCount() + 3) / 4;
+        return new Dimension(
+                PADDING * 2 + CELL_WIDTH * 4 + GAP * 2 + AISLE,
+                PADDING * 2 + rows * CELL_HEIGHT + Math.max(0, rows - 1) * GAP
+        );
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        SeatOccupancy occupancy = this.occupancy;
+        if (occupancy == null) return;
+
+        Graphics2D graphics = (Graphics2D) g.create();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setFont(getFont());
+        FontMetrics metrics = graphics.getFontMetrics();
+
+        Rectangle clip = graphics.getClipBounds();
+        Color selectionColor = UIManager.getColor("Table.selectionBackground");
+        if (selectionColor == null) selectionColor = Color.ORANGE;
+
+        for (int seat = 1, limit = occupancy.getSeatCount(); seat <= limit; seat++) {
+            int x = cellX(seat), y = cellY(seat);
+            if (clip != null && !clip.intersects(x, y, CELL_WIDTH + 1, CELL_HEIGHT + 1)) continue;
+
+            Color fill, border = BORDER_COLOR, text = Color.BLACK;
+            Stroke stroke = null;
+            if (seat == pendingSeat) {
+                fill = selectionColor;
+            } else if (occupancy.isHeld(seat)) {
+                fill = HELD_COLOR;
+                border = SOLD_BORDER_COLOR;
+                stroke = HELD_STROKE;
+                text = Color.GRAY;
+            } else if (occupancy.isSoldLocally(seat)) {
+                fill = ownerColors[seat] == null ? UNKNOWN_OWNER_COLOR : ownerColors[seat];
+                border = SOLD_BORDER_COLOR;
+            } else if (occupancy.isSoldByProvider(seat)) {
+                fill = providerOwnerColor(seat);
+                text = Color.GRAY;
+            } else {
+                fill = FREE_COLOR;
+            }
+
+            graphics.setColor(fill);
+            graphics.fillRoundRect(x, y, CELL_WIDTH, CELL_HEIGHT, 8, 8);
+            graphics.setColor(border);
+            Stroke defaultStroke = graphics.getStroke();
+            if (stroke != null) graphics.setStroke(stroke);
+            graphics.drawRoundRect(x, y, CELL_WIDTH, CELL_HEIGHT, 8, 8);
+            graphics.setStroke(defaultStroke);
+
+            String label = String.valueOf(seat);
+            graphics.setColor(text);
+            graphics.drawString(
+                    label,
+                    x + (CELL_WIDTH - metrics.stringWidth(label)) / 2,
+                    y + (CELL_HEIGHT - metrics.getHeight()) / 2 + metrics.getAscent()
+            );
+        }
+
+        graphics.dispose();
+    }
+
+    /**
+     * Gets the color of the owner of a seat sold by the provider. The provider does not tell the owners, thus a
+     * color is chosen pseudo-randomly, but always the same for the same seat of the same journey.
+     */
+    private Color providerOwnerColor(int seat) {
+        int hash = key.hashCode() * 31 + seat;
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return (hash & 1) == 0 ? Color.CYAN : Color.PINK;
+    }
+
+    private int seatAt(int x, int y) {
+        if (occupancy == null) return 0;
+
+        for (int seat = 1, limit = occupancy.getSeatCount(); seat <= limit; seat++) {
+            int cellX = cellX(seat), cellY = cellY(seat);
+            if (x >= cellX && x < cellX + CELL_WIDTH && y >= cellY && y < cellY + CELL_HEIGHT) return seat;
+        }
+
+        return 0;
+    }
+
+    private static int cellX(int seat) {
+        int column = (seat - 1) % 4;
+        return PADDING + column * (CELL_WIDTH + GAP) + (column >= 2 ? AISLE - GAP : 0);
+    }
+
+    private static int cellY(int seat) {
+        return PADDING + (seat - 1) / 4 * (CELL_HEIGHT + GAP);
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat occupancy of a journey.
+ * The seats sold by the provider are kept as a count, since the provider only reports how many of them are sold, and
+ * they are considered as the first seats of the bus. The states of the other seats, free, held or sold through this
+ * system, are kept in two bits per seat. Hence, both the remaining seat number and whether a seat is free are answered
+ * without looking at any ticket.
+ * <p>
+ * The states are changed by compare and set, without locking, hence of the concurrent claims or holds of a seat only
+ * one succeeds, and the others are told that the seat is taken.
+ */
+public class SeatOccupancy {
+    private static final int FREE = 0, HELD = 1, SOLD = 2;
+    private static final int SEATS_PER_WORD = 32;
+
+    private final int seatCount;
+    private final AtomicLongArray states;
+    private final AtomicInteger localSoldCount = new AtomicInteger();
+    private final AtomicInteger heldCount = new AtomicInteger();
+    private volatile int providerSoldCount;
+
+    /**
+     * Instantiates a new Seat occupancy.
+     *
+     * @param seatCount         The seat count of the bus.
+     * @param providerSoldCount The number of the seats sold by the provider.
+     */
+    SeatOccupancy(int seatCount, int providerSoldCount) {
+        this.seatCount = seatCount;
+        this.states = new AtomicLongArray((seatCount + SEATS_PER_WORD - 1) / SEATS_PER_WORD);
+        this.providerSoldCount = providerSoldCount;
+    }
+
+    /**
+     * Gets the seat count of the journey.
+     *
+     * @return The seat count.
+     */
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    /**
+     * Sets the number of the seats sold by the provider, as reported by the latest search.
+     *
+     * @param providerSoldCount New number of the seats sold by the provider.
+     */
+    public void setProviderSoldCount(int providerSoldCount) {
+        this.providerSoldCount = providerSoldCount;
+    }
+
+    /**
+     * Gets the remaining seat number of the journey. The held seats are counted as remaining, since they are released
+     * unless sold shortly.
+     *
+     * @return The remaining seat number.
+     */
+    public int getRemainingSeatNumber() {
+        return seatCount - providerSoldCount - localSoldCount.get();
+    }
+
+    /**
+     * Gets the number of the seats held at the moment.
+     *
+     * @return The number of the held seats.
+     */
+    public int getHeldCount() {
+        return heldCount.get();
+    }
+
+    /**
+     * Checks whether a seat is sold by the provider.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat is sold by the provider.
+     */
+    public boolean isSoldByProvider(int seat) {
+        return seat <= providerSoldCount;
+    }
+
+    /**
+     * Checks whether a seat is sold through this system.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat is sold through this system.
+     */
+    public boolean isSoldLocally(int seat) {
+        return stateOf(seat) == SOLD;
+    }
+
+    /**
+     * Checks whether a seat is held for a sale in progress.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat is held.
+     */
+    public boolean isHeld(int seat) {
+        return stateOf(seat) == HELD;
+    }
+
+    /**
+     * Checks whether a seat is free.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat is neither sold by the provider nor held or sold through this system.
+     */
+    public boolean isFree(int seat) {
+        return seat >= 1 && seat <= seatCount && !isSoldByProvider(seat) && stateOf(seat) == FREE;
+    }
+
+    /**
+     * Claims a free seat for a sale through this system.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat is claimed, false if it is held or sold already.
+     */
+    boolean tryClaim(int seat) {
+        if (isSoldByProvider(seat) || !transition(seat, FREE, SOLD)) return false;
+        localSoldCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Holds a free seat for a sale in progress.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat is held, false if it is held or sold already.
+     */
+    boolean tryHold(int seat) {
+        if (isSoldByProvider(seat) || !transition(seat, FREE, HELD)) return false;
+        heldCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Sells a held seat.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat was held.
+     */
+    boolean sellHeld(int seat) {
+        if (!transition(seat, HELD, SOLD)) return false;
+        heldCount.decrementAndGet();
+        localSoldCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Releases a held seat.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat was held.
+     */
+    boolean releaseHeld(int seat) {
+        if (!transition(seat, HELD, FREE)) return false;
+        heldCount.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Marks a seat as sold through this system, regardless of the provider, like when restoring the saved tickets.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat was not marked before.
+     */
+    boolean markSold(int seat) {
+        if (transition(seat, FREE, SOLD)) {
+            localSoldCount.incrementAndGet();
+            return true;
+        }
+
+        return sellHeld(seat);
+    }
+
+    /**
+     * Marks a seat, sold through this system, as free.
+     *
+     * @param seat Seat number, starting from 1.
+     * @return True if the seat was marked as sold before.
+     */
+    boolean markFree(int seat) {
+        if (!transition(seat, SOLD, FREE)) return false;
+        localSoldCount.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Replaces the seats sold through this system, like with the seats sold on a booking server as of a search.
+     * The seats held here are kept held, unless they are sold.
+     *
+     * @param soldSeats The sold seats, by their numbers.
+     */
+    void resetSold(BitSet soldSeats) {
+        for (int seat = 1; seat <= seatCount; seat++) {
+            if (soldSeats.get(seat)) markSold(seat);
+            else markFree(seat);
+        }
+    }
+
+    private int stateOf(int seat) {
+        if (seat < 1 || seat > seatCount) return FREE;
+        int index = seat - 1;
+        return (int) (states.get(index / SEATS_PER_WORD) >>> shiftOf(index)) & 3;
+    }
+
+    private boolean transition(int seat, int from, int to) {
+        if (seat < 1 || seat > seatCount) return false;
+
+        int index = seat - 1, word = index / SEATS_PER_WORD, shift = shiftOf(index);
+        for (long value = states.get(word); ; value = states.get(word)) {
+            if (((value >>> shift) & 3) != from) return false;
+            long next = (value & ~(3L << shift)) | ((long) to << shift);
+            if (states.compareAndSet(word, value, next)) return true;
+        }
+    }
+
+    private static int shiftOf(int index) {
+        return (index % SEATS_PER_WORD) * 2;
+    }
+}
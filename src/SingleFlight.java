@@ -0,0 +1,50 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalescer of the identical concurrent calls.
+ * The first call of a key starts the work, and the calls of the same key made until it is completed share its
+ * future instead of starting their own. Once the work is completed, the next call of the key starts it again.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the results.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Executes the work of a key, or joins the execution in flight for the same key.
+     *
+     * @param key  Key of the work.
+     * @param work A supplier starting the work, called only if no work of the key is in flight.
+     * @return A future, completed with the result of the work. The result is shared by all the callers joining it.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> work) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) return existing;
+
+        try {
+            work.get().whenComplete((value, error) -> {
+                inFlight.remove(key, future);
+                if (error != null) future.completeExceptionally(error);
+                else future.complete(value);
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Gets the number of the keys in flight.
+     *
+     * @return The number of the keys.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
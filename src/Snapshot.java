@@ -0,0 +1,469 @@
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Versioned binary snapshot of the tickets, their journeys and passengers.
+ * The snapshot is opened by mapping the file into the memory, and a record is decoded only when it is accessed for the
+ * first time. Locations, journeys and passengers are shared by many tickets, thus each of them is decoded once and
+ * the same instance is given to every ticket referencing it. The ids and the seats of the tickets can be read without
+ * decoding the tickets, to index them.
+ * <p>
+ * A snapshot is not thread safe, and it shall be closed once its tickets are decoded, since the file cannot be replaced
+ * on some systems while it is mapped.
+ * <p>
+ * Layout: a fixed size header with the record counts and the offsets of the offset tables, followed by the location,
+ * journey, passenger and ticket records, followed by an offset table for each of them.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x42545353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int LOCATIONS = 0, JOURNEYS = 1, PASSENGERS = 2, TICKETS = 3;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final ByteBuffer buffer;
+    private final int[] counts = new int[4];
+    private final int[] tables = new int[4];
+    private final Location[] locations;
+    private final Bus[] journeys;
+    private final Passenger[] passengers;
+    private final boolean[] isJourneyComplete;
+    private boolean isClosed;
+
+    private Snapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) throw new IOException("Not a snapshot");
+        if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+
+        for (int i = 0; i < 4; i++) {
+            counts[i] = buffer.getInt(8 + i * 4);
+            tables[i] = buffer.getInt(24 + i * 4);
+            if (tables[i] < HEADER_SIZE || tables[i] + counts[i] * 4L > buffer.capacity()) {
+                throw new IOException("Corrupted snapshot");
+            }
+        }
+
+        locations = new Location[counts[LOCATIONS]];
+        journeys = new Bus[counts[JOURNEYS]];
+        isJourneyComplete = new boolean[counts[JOURNEYS]];
+        passengers = new Passenger[counts[PASSENGERS]];
+    }
+
+    /**
+     * Opens a snapshot by mapping the file. Only the header is read.
+     *
+     * @param path Path of the snapshot file.
+     * @return The snapshot, or null if there is no snapshot.
+     * @throws IOException If the snapshot could not be read or is not valid.
+     */
+    public static Snapshot open(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Snapshot(buffer);
+        }
+    }
+
+    /**
+     * Gets the number of the tickets in the snapshot.
+     *
+     * @return The number of the tickets.
+     */
+    public int getTicketCount() {
+        return counts[TICKETS];
+    }
+
+    /**
+     * Reads the id of a ticket, without decoding the ticket.
+     *
+     * @param index Index of the ticket.
+     * @return The id of the ticket.
+     */
+    public String getTicketId(int index) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset(TICKETS, index));
+        return readString(in);
+    }
+
+    /**
+     * Reads the journey of a ticket, without decoding the ticket. The passengers of the journey are not decoded yet.
+     *
+     * @param index Index of the ticket.
+     * @return The bus of the journey, or null if the ticket has none.
+     */
+    public Bus getTicketJourney(int index) {
+        return getJourney(buffer.getInt(ticketFieldsOffset(index)), false);
+    }
+
+    /**
+     * Reads the seat number of a ticket, without decoding the ticket.
+     *
+     * @param index Index of the ticket.
+     * @return The seat number.
+     */
+    public int getTicketSeat(int index) {
+        // After the journey index and the owner id.
+        return buffer.getInt(ticketFieldsOffset(index) + 12);
+    }
+
+    /**
+     * Releases the mapping of the file, so that it can be replaced, like by the next snapshot. The tickets decoded
+     * already stay valid, but the snapshot shall not be used anymore.
+     */
+    public void close() {
+        if (isClosed) return;
+        isClosed = true;
+        if (!(buffer instanceof MappedByteBuffer)) return;
+
+        // The mapping is otherwise released only when the buffer is garbage collected, whose cleaner is reached
+        // through sun.misc.Unsafe since Java 9, and through the buffer itself before.
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe, buffer);
+        } catch (NoSuchMethodException e) {
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (ReflectiveOperationException | RuntimeException e1) {
+                e1.printStackTrace();
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int offset(int section, int index) {
+        if (isClosed) throw new IllegalStateException("Snapshot is closed");
+        return buffer.getInt(tables[section] + index * 4);
+    }
+
+    private int ticketFieldsOffset(int index) {
+        int offset = offset(TICKETS, index);
+        return offset + 4 + Math.max(buffer.getInt(offset), 0);
+    }
+
+    private String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Location getLocation(int index) {
+        if (index < 0) return null;
+
+        Location location = locations[index];
+        if (location == null) {
+            ByteBuffer in = buffer.duplicate();
+            in.position(offset(LOCATIONS, index));
+            String name = readString(in);
+            String htmlValue = readString(in);
+            locations[index] = location = Location.intern(new Location(name, htmlValue));
+        }
+
+        return location;
+    }
+
+    private Passenger getPassenger(int index) {
+        Passenger passenger = passengers[index];
+        if (passenger == null) {
+            ByteBuffer in = buffer.duplicate();
+            in.position(offset(PASSENGERS, index));
+            passenger = new Passenger();
+            passenger.setId(in.getLong());
+            String name = readString(in), surname = readString(in);
+            if (name != null) passenger.setName(name);
+            if (surname != null) passenger.setSurname(surname);
+            passenger.setPhone(readString(in));
+            passenger.setMale(in.get() != 0);
+            passengers[index] = passenger;
+        }
+
+        return passenger;
+    }
+
+    private Bus getJourney(int index, boolean isComplete) {
+        if (index < 0) return null;
+
+        Bus bus = journeys[index];
+        if (bus != null && (isJourneyComplete[index] || !isComplete)) return bus;
+
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset(JOURNEYS, index));
+        String code = readString(in);
+        int from = in.getInt(), to = in.getInt();
+        long movement = in.getLong(), landing = in.getLong();
+        int seatNumber = in.getInt(), soldSeat = in.getInt();
+        double price = in.getDouble();
+        if (bus == null) {
+            bus = new Bus(code, seatNumber, getLocation(from), getLocation(to));
+            bus.setSoldSeat(soldSeat);
+            bus.setPrice(price);
+            bus.setMovementDate(movement == NO_DATE ? null : new Date(movement));
+            bus.setLandingDate(landing == NO_DATE ? null : new Date(landing));
+            journeys[index] = bus;
+        }
+
+        if (isComplete) {
+            int count = in.getInt();
+            ArrayList<Passenger> busPassengers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) busPassengers.add(getPassenger(in.getInt()));
+            bus.setPassengers(busPassengers);
+            isJourneyComplete[index] = true;
+        }
+
+        return bus;
+    }
+
+    /**
+     * Decodes a ticket of the snapshot.
+     *
+     * @param index Index of the ticket.
+     * @return The ticket.
+     */
+    public Ticket getTicket(int index) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset(TICKETS, index));
+
+        Ticket ticket = new Ticket(readString(in));
+        ticket.setBus(getJourney(in.getInt(), true));
+        ticket.setOwnerId(in.getLong());
+        ticket.setSeatNumber(in.getInt());
+        ticket.setFrom(getLocation(in.getInt()));
+        ticket.setTo(getLocation(in.getInt()));
+        long date = in.getLong();
+        if (date != NO_DATE) ticket.setDate(new Date(date));
+
+        if (in.get() != 0) {
+            Baggage baggage = new Baggage();
+            baggage.setOwnerId(in.getLong());
+            baggage.setWeight(in.getFloat());
+            ticket.setBaggage(baggage);
+        }
+
+        return ticket;
+    }
+
+    /**
+     * Writes a snapshot of the tickets.
+     * The snapshot is written to a temporary file first and then moved over the previous one, thus a snapshot is
+     * never left half written.
+     *
+     * @param tickets Tickets to write.
+     * @param path    Path of the snapshot file.
+     * @throws IOException If the snapshot could not be written.
+     */
+    public static void write(Collection<Ticket> tickets, Path path) throws IOException {
+        LinkedHashMap<Location, Integer> locationIndexes = new LinkedHashMap<>();
+        LinkedHashMap<JourneyKey, Bus> journeys = new LinkedHashMap<>();
+        LinkedHashMap<JourneyKey, LinkedHashMap<Long, Passenger>> journeyPassengers = new LinkedHashMap<>();
+        LinkedHashMap<Long, Passenger> passengers = new LinkedHashMap<>();
+        IdentityHashMap<Passenger, Integer> passengerIndexes = new IdentityHashMap<>();
+        IdentityHashMap<Bus, Boolean> visitedBuses = new IdentityHashMap<>();
+
+        for (Ticket ticket : tickets) {
+            Bus bus = ticket.getBus();
+            if (bus != null && visitedBuses.put(bus, Boolean.TRUE) == null) {
+                journeys.putIfAbsent(bus.getKey(), bus);
+                LinkedHashMap<Long, Passenger> busPassengers =
+                        journeyPassengers.computeIfAbsent(bus.getKey(), k -> new LinkedHashMap<>());
+                if (bus.getPassengers() != null) {
+                    for (Passenger passenger : bus.getPassengers()) {
+                        Passenger known = passengers.putIfAbsent(passenger.getId(), passenger);
+                        busPassengers.putIfAbsent(passenger.getId(), known == null ? passenger : known);
+                    }
+                }
+
+                locationIndexes.putIfAbsent(bus.getFrom(), locationIndexes.size());
+                locationIndexes.putIfAbsent(bus.getTo(), locationIndexes.size());
+            }
+
+            if (ticket.getFrom() != null) locationIndexes.putIfAbsent(ticket.getFrom(), locationIndexes.size());
+            if (ticket.getTo() != null) locationIndexes.putIfAbsent(ticket.getTo(), locationIndexes.size());
+        }
+
+        for (Passenger passenger : passengers.values()) passengerIndexes.put(passenger, passengerIndexes.size());
+        LinkedHashMap<JourneyKey, Integer> journeyIndexes = new LinkedHashMap<>();
+        for (JourneyKey key : journeys.keySet()) journeyIndexes.put(key, journeyIndexes.size());
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Encoder out = new Encoder(channel);
+            out.skip(HEADER_SIZE);
+
+            int[][] offsets = new int[4][];
+
+            offsets[LOCATIONS] = new int[locationIndexes.size()];
+            int index = 0;
+            for (Location location : locationIndexes.keySet()) {
+                offsets[LOCATIONS][index++] = out.position();
+                out.putString(location == null ? null : location.getName());
+                out.putString(location == null ? null : location.getHtmlValue());
+            }
+
+            offsets[JOURNEYS] = new int[journeys.size()];
+            index = 0;
+            for (Bus bus : journeys.values()) {
+                offsets[JOURNEYS][index++] = out.position();
+                out.putString(bus.getCode());
+                out.putInt(locationIndexes.get(bus.getFrom()));
+                out.putInt(locationIndexes.get(bus.getTo()));
+                out.putLong(bus.getMovementDate() == null ? NO_DATE : bus.getMovementDate().getTime());
+                out.putLong(bus.getLandingDate() == null ? NO_DATE : bus.getLandingDate().getTime());
+                out.putInt(bus.getSeatNumber());
+                out.putInt(bus.getSoldSeat());
+                out.putDouble(bus.getPrice());
+
+                Collection<Passenger> busPassengers = journeyPassengers.get(bus.getKey()).values();
+                out.putInt(busPassengers.size());
+                for (Passenger passenger : busPassengers) out.putInt(passengerIndexes.get(passenger));
+            }
+
+            offsets[PASSENGERS] = new int[passengers.size()];
+            index = 0;
+            for (Passenger passenger : passengers.values()) {
+                offsets[PASSENGERS][index++] = out.position();
+                out.putLong(passenger.getId());
+                out.putString(passenger.getName());
+                out.putString(passenger.getSurname());
+                out.putString(passenger.getPhone());
+                out.put((byte) (passenger.isMale() ? 1 : 0));
+            }
+
+            offsets[TICKETS] = new int[tickets.size()];
+            index = 0;
+            for (Ticket ticket : tickets) {
+                offsets[TICKETS][index++] = out.position();
+                out.putString(ticket.getId());
+                out.putInt(ticket.getBus() == null ? -1 : journeyIndexes.get(ticket.getBus().getKey()));
+                out.putLong(ticket.getOwnerId());
+                out.putInt(ticket.getSeatNumber());
+                out.putInt(ticket.getFrom() == null ? -1 : locationIndexes.get(ticket.getFrom()));
+                out.putInt(ticket.getTo() == null ? -1 : locationIndexes.get(ticket.getTo()));
+                out.putLong(ticket.getDate() == null ? NO_DATE : ticket.getDate().getTime());
+
+                Baggage baggage = ticket.getBaggage();
+                out.put((byte) (baggage == null ? 0 : 1));
+                if (baggage != null) {
+                    out.putLong(baggage.getOwnerId());
+                    out.putFloat(baggage.getWeight());
+                }
+            }
+
+            int[] tables = new int[4];
+            for (int section = 0; section < 4; section++) {
+                tables[section] = out.position();
+                for (int offset : offsets[section]) out.putInt(offset);
+            }
+
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION);
+            for (int section = 0; section < 4; section++) header.putInt(offsets[section].length);
+            for (int section = 0; section < 4; section++) header.putInt(tables[section]);
+            header.clear();
+            while (header.hasRemaining()) channel.write(header, header.position());
+
+            channel.force(true);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Buffered writer of the primitive values to a file channel.
+     */
+    private static class Encoder {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long written;
+
+        Encoder(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        int position() throws IOException {
+            long position = written + buffer.position();
+            if (position > Integer.MAX_VALUE) throw new IOException("Snapshot is too large");
+            return (int) position;
+        }
+
+        void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++) put((byte) 0);
+        }
+
+        private void ensure(int size) throws IOException {
+            if (buffer.remaining() < size) flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) written += channel.write(buffer);
+            buffer.clear();
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putFloat(float value) throws IOException {
+            ensure(4);
+            buffer.putFloat(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                ensure(1);
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+    }
+}
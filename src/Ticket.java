@@ -1,11 +1,11 @@
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.annotate.JsonIgnore;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.UUID;
@@ -31,6 +31,15 @@ public class Ticket implements Serializable, Savable {
         id = String.valueOf(UUID.randomUUID().toString().hashCode());
     }
 
+    /**
+     * Instantiates a new Ticket with a known id.
+     *
+     * @param id ID of the ticket.
+     */
+    Ticket(String id) {
+        this.id = id;
+    }
+
     /**
      * Loads a ticket from a file by id.
      *
@@ -53,7 +62,7 @@ public class Ticket implements Serializable, Savable {
             if (!id.startsWith("ticket-")) id = "ticket-" + id;
 
             File file = new File(Helpers.ROOT_FOLDER_PATH + id);
-            return Helpers.JSON_MAPPER.readValue(file, Ticket.class);
+            return internLocations(Helpers.JSON_MAPPER.readValue(file, Ticket.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -61,6 +70,44 @@ public class Ticket implements Serializable, Savable {
         return null;
     }
 
+    /**
+     * Creates a ticket from its JSON representation.
+     *
+     * @param json JSON representation of the ticket, as created by {@link #toJson()}.
+     * @return The ticket.
+     * @throws IOException If the JSON could not be parsed.
+     */
+    static Ticket fromJson(String json) throws IOException {
+        return internLocations(Helpers.JSON_MAPPER.readValue(json, Ticket.class));
+    }
+
+    /**
+     * Creates a ticket from its JSON representation.
+     *
+     * @param json UTF-8 encoded JSON representation of the ticket, as created by {@link #toJson()}.
+     * @return The ticket.
+     * @throws IOException If the JSON could not be parsed.
+     */
+    static Ticket fromJson(byte[] json) throws IOException {
+        return internLocations(Helpers.JSON_MAPPER.readValue(json, Ticket.class));
+    }
+
+    /**
+     * Reads a ticket from a JSON parser, positioned at the start of the ticket object.
+     *
+     * @param parser Parser to read from.
+     * @return The ticket.
+     * @throws IOException If the JSON could not be parsed.
+     */
+    static Ticket fromJson(JsonParser parser) throws IOException {
+        return internLocations(Helpers.JSON_MAPPER.readValue(parser, Ticket.class));
+    }
+
+    private static Ticket internLocations(Ticket ticket) {
+        if (ticket.bus != null) ticket.bus.internLocations();
+        return ticket;
+    }
+
     /**
      * Gets the related bus.
      *
@@ -81,14 +128,19 @@ public class Ticket implements Serializable, Savable {
 
     /**
      * Gets the owner of the ticket.
-     * If is not saved here normally, hence tries to find the owner by looking up the passengers of the related bus.
+     * If is not saved here normally, hence looks up the passenger registry, and if the owner is not registered yet,
+     * tries to find the owner by looking up the passengers of the related bus.
      *
      * @return Owner of the ticket if there is.
      */
     @JsonIgnore
     public Passenger getOwner() {
+        Passenger owner = Helpers.passengers.get(ownerId);
+        if (owner != null || bus == null || bus.getPassengers() == null) return owner;
+
         for (Passenger passenger : bus.getPassengers()) {
             if (passenger.getId() == ownerId) {
+                Helpers.passengers.register(passenger);
                 return passenger;
             }
         }
@@ -184,7 +236,7 @@ public class Ticket implements Serializable, Savable {
      * @param from New movement location of the ticket.
      */
     public void setFrom(Location from) {
-        this.from = from;
+        this.from = Location.intern(from);
     }
 
     /**
@@ -202,18 +254,14 @@ public class Ticket implements Serializable, Savable {
      * @param to New landing location of the ticket.
      */
     public void setTo(Location to) {
-        this.to = to;
+        this.to = Location.intern(to);
     }
 
+    @Override
     public boolean trySave() {
         try {
-            String json = toJson().toString();
-
-            Files.write(
-                    new File(Helpers.ROOT_FOLDER_PATH + "ticket-" + id + ".ticket").toPath(),
-                    json.getBytes(),
-                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
-            );
+            Helpers.journal.appendSale(this);
+            return true;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -228,8 +276,8 @@ public class Ticket implements Serializable, Savable {
         object.remove("owner");
 
         JSONObject busObj = object.getJSONObject("bus");
-        busObj.put("movementDate", Helpers.ISO_DATE_FORMAT.format(bus.getMovementDate()));
-        busObj.put("landingDate", Helpers.ISO_DATE_FORMAT.format(bus.getLandingDate()));
+        busObj.put("movementDate", DateCodec.formatIso(bus.getMovementDate()));
+        busObj.put("landingDate", DateCodec.formatIso(bus.getLandingDate()));
 
         return object;
     }
@@ -97,8 +97,20 @@ public class TicketDialog extends JDialog {
             );
 
             if (result != JOptionPane.YES_OPTION) return;
-            Helpers.removeTicket(ticket);
-            this.dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+
+            // The dialog is closed once the cancellation completes, since it may fail on a booking server.
+            btnDelete.setEnabled(false);
+            Helpers.booking.cancel(ticket).whenComplete((isCancelled, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    Helpers.message("Ticket " + ticket.toString() + " could not be cancelled");
+                    btnDelete.setEnabled(true);
+                    return;
+                }
+
+                if (!isCancelled) Helpers.message("Ticket " + ticket.toString() + " is not found, it may be cancelled already");
+                this.dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+            }));
         });
     }
 
@@ -106,8 +118,8 @@ public class TicketDialog extends JDialog {
         tfOwnerName.setText(ticket.getOwner().toString());
         tfFrom.setText(ticket.getBus().getFrom().getName());
         tfTo.setText(ticket.getBus().getTo().getName());
-        tfMovementDate.setText(Helpers.NORMAL_DATE_FORMAT.format(ticket.getBus().getMovementDate()));
-        tfLandingDate.setText(Helpers.NORMAL_DATE_FORMAT.format(ticket.getBus().getLandingDate()));
+        tfMovementDate.setText(DateCodec.formatTimeDate(ticket.getBus().getMovementDate()));
+        tfLandingDate.setText(DateCodec.formatTimeDate(ticket.getBus().getLandingDate()));
 
         if (ticket.getBaggage() != null) {
             tfBaggage.setText(ticket.getBaggage().toString());
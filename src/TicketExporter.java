@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming writer of the exported ticket files.
+ * The tickets are exported from a list taken at the start, hence the sales may continue meanwhile. They are
+ * serialized in chunks, in parallel, and written to a file channel through a bounded buffer, thus only a chunk of
+ * the tickets is held in memory as JSON at a time. The files whose names end with .gz are compressed with gzip.
+ * The file is written to a temporary file first, and replaces the target only when it is complete.
+ */
+public class TicketExporter {
+    private static final int CHUNK_SIZE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] ARRAY_START = {'['}, SEPARATOR = {','}, ARRAY_END = {']'};
+
+    private final List<Ticket> tickets;
+    private Action<Integer> onProgress;
+
+    /**
+     * Instantiates a new Ticket exporter.
+     *
+     * @param tickets Tickets to export. The list shall not be modified during the export.
+     */
+    public TicketExporter(List<Ticket> tickets) {
+        this.tickets = tickets;
+    }
+
+    /**
+     * Sets a progress listener, which is called after each chunk with the number of the tickets written so far.
+     *
+     * @param onProgress An action with the written ticket count.
+     */
+    public void setOnProgressListener(Action<Integer> onProgress) {
+        this.onProgress = onProgress;
+    }
+
+    /**
+     * Writes the tickets to a file, as a JSON array of the tickets.
+     *
+     * @param path Path of the file, which is compressed if its name ends with .gz.
+     * @throws IOException If the file could not be written.
+     */
+    public void write(Path path) throws IOException {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Sink sink = path.getFileName().toString().endsWith(".gz")
+                    ? new GzipSink(channel)
+                    : new ChannelSink(channel);
+
+            sink.write(ARRAY_START);
+            for (int start = 0, size = tickets.size(); start < size; start += CHUNK_SIZE) {
+                List<Ticket> chunk = tickets.subList(start, Math.min(start + CHUNK_SIZE, size));
+                byte[][] serialized = chunk.parallelStream().map(TicketExporter::serialize).toArray(byte[][]::new);
+
+                for (int i = 0; i < serialized.length; i++) {
+                    if (start + i > 0) sink.write(SEPARATOR);
+                    sink.write(serialized[i]);
+                }
+
+                if (onProgress != null) onProgress.call(start + chunk.size());
+            }
+
+            sink.write(ARRAY_END);
+            sink.finish();
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] serialize(Ticket ticket) {
+        return ticket.toJson().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface Sink {
+        void write(byte[] bytes) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static class ChannelSink implements Sink {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        ChannelSink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+
+                if (!buffer.hasRemaining()) drain();
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    private static class GzipSink implements Sink {
+        private final GZIPOutputStream output;
+
+        GzipSink(FileChannel channel) throws IOException {
+            OutputStream channelOutput = Channels.newOutputStream(channel);
+            output = new GZIPOutputStream(channelOutput, BUFFER_SIZE);
+        }
+
+        @Override
+        public void write(byte[] bytes) throws IOException {
+            output.write(bytes);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            output.finish();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming reader of the exported ticket files.
+ * The JSON array of the tickets is parsed incrementally, one ticket at a time, thus the file is never held in memory
+ * as a whole. The tickets are handed over in batches, and the duplicates, either in the file or already in the
+ * system, are dropped before. Files compressed with gzip are detected and decompressed on the fly.
+ */
+public class TicketImporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final int batchSize;
+    private Action<Integer> onProgress;
+    private int readCount, duplicateCount;
+
+    /**
+     * Instantiates a new Ticket importer.
+     *
+     * @param path      Path of the file to import.
+     * @param batchSize Maximum number of the tickets in a batch.
+     */
+    public TicketImporter(Path path, int batchSize) {
+        this.path = path;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets a progress listener, which is called after each batch with the number of the tickets read so far.
+     *
+     * @param onProgress An action with the read ticket count.
+     */
+    public void setOnProgressListener(Action<Integer> onProgress) {
+        this.onProgress = onProgress;
+    }
+
+    /**
+     * Reads the file, calling an action with each batch of the new tickets.
+     *
+     * @param onBatch An action with the new tickets of a batch.
+     * @throws IOException If the file could not be read or is not an array of tickets.
+     */
+    public void read(Action<ArrayList<Ticket>> onBatch) throws IOException {
+        HashSet<String> seenIds = new HashSet<>();
+        ArrayList<Ticket> batch = new ArrayList<>(batchSize);
+
+        try (InputStream input = open(path);
+             JsonParser parser = Helpers.JSON_MAPPER.getJsonFactory().createJsonParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) throw new IOException("Not an array of tickets: " + path);
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Ticket ticket = Ticket.fromJson(parser);
+                readCount++;
+
+                if (!seenIds.add(ticket.getId()) || Helpers.tickets.contains(ticket)) {
+                    duplicateCount++;
+                    continue;
+                }
+
+                batch.add(ticket);
+                if (batch.size() == batchSize) {
+                    flush(batch, onBatch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+
+        flush(batch, onBatch);
+    }
+
+    private static InputStream open(Path path) throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        input.mark(2);
+        int first = input.read(), second = input.read();
+        input.reset();
+
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >>> 8)) {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+
+        return input;
+    }
+
+    private void flush(ArrayList<Ticket> batch, Action<ArrayList<Ticket>> onBatch) {
+        if (!batch.isEmpty()) onBatch.call(batch);
+        if (onProgress != null) onProgress.call(readCount);
+    }
+
+    /**
+     * Gets the number of the tickets read so far.
+     *
+     * @return The number of the tickets.
+     */
+    public int getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Gets the number of the tickets dropped as duplicates so far.
+     *
+     * @return The number of the duplicates.
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+}
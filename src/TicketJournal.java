@@ -0,0 +1,402 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of the ticket sales and cancellations.
+ * Every record is a single line, either {@code S <ticket json>} for a sale or {@code C <ticket id>} for a
+ * cancellation. Writers append their records to a pending batch, and the first writer reaching the commit writes and
+ * forces the whole batch to the disk, hence concurrent writers share a single fsync (group commit).
+ * If a batch could not be written, the journal is truncated back to its last durable length, and every writer of the
+ * batch fails, so no writer is told that a record is durable unless it is.
+ * The journal is compacted by rewriting only the live tickets, when it holds too many dead records.
+ */
+public class TicketJournal {
+    private static final byte SALE = 'S', CANCEL = 'C', SEPARATOR = ' ', END = '\n';
+    private static final int MIN_COMPACTION_RECORD_COUNT = 1024;
+
+    private final Path path;
+    private final Object appendLock = new Object(), commitLock = new Object();
+    private FileChannel channel;
+    private ArrayList<byte[]> pending = new ArrayList<>();
+    private long appendedSequence, durableSequence, committedSequence, durableLength = -1;
+    private int recordCount, writerCount;
+    private final TreeMap<Long, FailedBatch> failedBatches = new TreeMap<>();
+    private ScheduledExecutorService maintenanceService;
+
+    /**
+     * Instantiates a new Ticket journal.
+     *
+     * @param path Path of the journal file.
+     */
+    public TicketJournal(Path path) {
+        this.path = path;
+    }
+
+    private static byte[] record(byte type, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        byte[] record = new byte[bytes.length + 3];
+        record[0] = type;
+        record[1] = SEPARATOR;
+        System.arraycopy(bytes, 0, record, 2, bytes.length);
+        record[record.length - 1] = END;
+        return record;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(path.getParent());
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            // A failed batch, whose truncation failed as well, may have left a torn record at the end.
+            if (durableLength < 0) durableLength = channel.size();
+            else if (channel.size() > durableLength) channel.truncate(durableLength);
+        }
+
+        return channel;
+    }
+
+    /**
+     * Replays the journal from the beginning.
+     * An incomplete record at the end of the journal, left by an interrupted write, is discarded.
+     *
+     * @param onSale   An action to call with every sold ticket.
+     * @param onCancel An action to call with the id of every cancelled ticket.
+     * @throws IOException If the journal could not be read.
+     */
+    public void replay(Action<Ticket> onSale, Action<String> onCancel) throws IOException {
+        synchronized (commitLock) {
+            if (!Files.exists(path)) return;
+
+            long validLength = 0;
+            int count = 0;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+                byte[] line = new byte[256];
+                int length = 0;
+                for (int b; (b = in.read()) != -1; ) {
+                    if (b != END) {
+                        if (length == line.length) {
+                            byte[] grown = new byte[line.length * 2];
+                            System.arraycopy(line, 0, grown, 0, length);
+                            line = grown;
+                        }
+
+                        line[length++] = (byte) b;
+                        continue;
+                    }
+
+                    validLength += length + 1;
+                    count++;
+                    if (length > 2) {
+                        String value = new String(line, 2, length - 2, StandardCharsets.UTF_8);
+                        try {
+                            if (line[0] == SALE) {
+                                Ticket ticket = Ticket.fromJson(value);
+                                if (onSale != null) onSale.call(ticket);
+                            } else if (line[0] == CANCEL) {
+                                if (onCancel != null) onCancel.call(value);
+                            }
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    }
+
+                    length = 0;
+                }
+            }
+
+            if (validLength < Files.size(path)) {
+                channel().truncate(validLength);
+            }
+
+            durableLength = validLength;
+            recordCount = count;
+        }
+    }
+
+    /**
+     * Appends the records of a writer to the pending batch, without writing them.
+     * Every call must be followed by a {@link #commit(long)} with the returned sequence.
+     *
+     * @param records Records to append.
+     * @return The sequence of the last record, to be passed to {@link #commit(long)}.
+     */
+    private long append(List<byte[]> records) {
+        synchronized (appendLock) {
+            pending.addAll(records);
+            writerCount++;
+            appendedSequence += records.size();
+            return appendedSequence;
+        }
+    }
+
+    /**
+     * Makes sure that all the records up to the sequence are written and forced to the disk.
+     * If another writer already committed the record, returns immediately, or fails if that commit failed.
+     *
+     * @param sequence Sequence of the record.
+     * @throws IOException If the records could not be written.
+     */
+    private void commit(long sequence) throws IOException {
+        synchronized (commitLock) {
+            try {
+                if (committedSequence < sequence) writePending();
+
+                Long lastSequence = failedBatches.ceilingKey(sequence);
+                FailedBatch failed = lastSequence == null ? null : failedBatches.get(lastSequence);
+                if (failed != null && failed.firstSequence <= sequence) {
+                    throw new IOException("Could not write the journal", failed.cause);
+                }
+            } finally {
+                synchronized (appendLock) {
+                    // No writer can be waiting for the failed batches anymore.
+                    if (--writerCount == 0) failedBatches.clear();
+                }
+            }
+        }
+    }
+
+    private void writePending() {
+        ArrayList<byte[]> batch;
+        long lastSequence;
+        synchronized (appendLock) {
+            batch = pending;
+            lastSequence = appendedSequence;
+            pending = new ArrayList<>();
+        }
+
+        committedSequence = lastSequence;
+        if (batch.isEmpty()) return;
+
+        try {
+            write(channel(), batch);
+            channel.force(false);
+            durableLength = channel.size();
+            recordCount += batch.size();
+            durableSequence = lastSequence;
+        } catch (IOException e) {
+            try {
+                if (channel != null) channel.truncate(durableLength);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                closeChannel();
+            }
+
+            failedBatches.put(lastSequence, new FailedBatch(lastSequence - batch.size() + 1, e));
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        channel = null;
+    }
+
+    private static void write(FileChannel channel, ArrayList<byte[]> records) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(records.get(i));
+            remaining += buffers[i].remaining();
+        }
+
+        while (remaining > 0) remaining -= channel.write(buffers);
+    }
+
+    /**
+     * Appends sale records of the tickets and waits until they are durable.
+     *
+     * @param tickets Sold tickets.
+     * @throws IOException If the records could not be written.
+     */
+    public void appendSales(Collection<Ticket> tickets) throws IOException {
+        append(tickets, Collections.emptyList());
+    }
+
+    /**
+     * Appends sale and cancellation records and waits until they are durable, with a single commit.
+     *
+     * @param sales        Sold tickets.
+     * @param cancelledIds IDs of the cancelled tickets.
+     * @throws IOException If the records could not be written.
+     */
+    public void append(Collection<Ticket> sales, Collection<String> cancelledIds) throws IOException {
+        ArrayList<byte[]> records = new ArrayList<>(sales.size() + cancelledIds.size());
+        for (Ticket ticket : sales) records.add(record(SALE, ticket.toJson().toString()));
+        for (String id : cancelledIds) records.add(record(CANCEL, id));
+        if (!records.isEmpty()) commit(append(records));
+    }
+
+    /**
+     * Appends a sale record of the ticket and waits until it is durable.
+     *
+     * @param ticket Sold ticket.
+     * @throws IOException If the record could not be written.
+     */
+    public void appendSale(Ticket ticket) throws IOException {
+        commit(append(Collections.singletonList(record(SALE, ticket.toJson().toString()))));
+    }
+
+    /**
+     * Appends a cancellation record of the ticket and waits until it is durable.
+     *
+     * @param ticketId ID of the cancelled ticket.
+     * @throws IOException If the record could not be written.
+     */
+    public void appendCancel(String ticketId) throws IOException {
+        commit(append(Collections.singletonList(record(CANCEL, ticketId))));
+    }
+
+    /**
+     * Checks whether the journal holds enough dead records to be compacted.
+     *
+     * @param liveCount The number of the live tickets.
+     * @return True if the journal should be compacted.
+     */
+    public boolean needsCompaction(int liveCount) {
+        synchronized (commitLock) {
+            return recordCount > MIN_COMPACTION_RECORD_COUNT && recordCount > liveCount * 2;
+        }
+    }
+
+    /**
+     * Rewrites the journal with only the sale records of the live tickets.
+     * Writers are blocked during the compaction. The live tickets are taken from the store after blocking the writers,
+     * and since the store is updated before the journal, a record written before the compaction is always reflected
+     * by them.
+     *
+     * @param store Store of the live tickets.
+     * @throws IOException If the journal could not be rewritten.
+     */
+    public void compact(TicketStore store) throws IOException {
+        synchronized (commitLock) {
+            synchronized (appendLock) {
+                Collection<Ticket> tickets = store.toList();
+                ArrayList<byte[]> records = new ArrayList<>(tickets.size());
+                for (Ticket ticket : tickets) records.add(record(SALE, ticket.toJson().toString()));
+
+                Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+                try (FileChannel out = FileChannel.open(temporary,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    write(out, records);
+                    out.force(true);
+                }
+
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                // Records appended but not committed yet are stale now, since the live tickets already reflect them.
+                pending = new ArrayList<>();
+                durableSequence = committedSequence = appendedSequence;
+                durableLength = -1;
+                recordCount = records.size();
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the live tickets and then empties the journal, since the snapshot reflects all its records.
+     * Writers are blocked during the checkpoint, the same way as the compaction.
+     *
+     * @param store        Store of the live tickets.
+     * @param snapshotPath Path of the snapshot file.
+     * @throws IOException If the snapshot could not be written, in which case the journal is kept.
+     */
+    public void checkpoint(TicketStore store, Path snapshotPath) throws IOException {
+        synchronized (commitLock) {
+            synchronized (appendLock) {
+                Snapshot.write(store.toList(), snapshotPath);
+                channel().truncate(0);
+                channel.force(true);
+
+                pending = new ArrayList<>();
+                durableSequence = committedSequence = appendedSequence;
+                durableLength = 0;
+                recordCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Schedules a periodic check, compacting the journal when it holds too many dead records.
+     *
+     * @param store  Store of the live tickets.
+     * @param period Period of the check, in milliseconds.
+     */
+    public void scheduleCompaction(TicketStore store, long period) {
+        maintenanceService().scheduleWithFixedDelay(() -> {
+            try {
+                if (needsCompaction(store.size())) compact(store);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules periodic checkpoints, writing a snapshot of the live tickets when the journal is not empty.
+     *
+     * @param store        Store of the live tickets.
+     * @param snapshotPath Path of the snapshot file.
+     * @param period       Period of the checkpoints, in milliseconds.
+     */
+    public void scheduleCheckpoint(TicketStore store, Path snapshotPath, long period) {
+        maintenanceService().scheduleWithFixedDelay(() -> {
+            try {
+                boolean isEmpty;
+                synchronized (commitLock) {
+                    isEmpty = recordCount == 0 && committedSequence == appendedSequence;
+                }
+
+                if (!isEmpty) checkpoint(store, snapshotPath);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService maintenanceService() {
+        if (maintenanceService == null) {
+            maintenanceService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ticket-journal-maintenance");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+
+        return maintenanceService;
+    }
+
+    private static class FailedBatch {
+        private final long firstSequence;
+        private final IOException cause;
+
+        private FailedBatch(long firstSequence, IOException cause) {
+            this.firstSequence = firstSequence;
+            this.cause = cause;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -10,7 +12,9 @@ import java.awt.event.MouseEvent;
  */
 public class TicketListPanel extends JPanel {
     private JTable tableTicket;
-    private ReadOnlyTableModel model;
+    private TicketTableModel model;
+    private TicketRowSorter sorter;
+    private JTextField tfSearch;
     private JLabel totalTicketLabel;
 
     /**
@@ -24,6 +28,8 @@ public class TicketListPanel extends JPanel {
 
     private void initLayout() {
         setLayout(new MigLayout());
+        add(new JLabel("Search:"));
+        add(tfSearch, "growx, pushx, span, wrap");
         add(new JScrollPane(tableTicket), "grow, push, span");
         add(totalTicketLabel = new JLabel("Total Ticket Count: " + Helpers.tickets.size()), "pushx");
 
@@ -42,7 +48,7 @@ public class TicketListPanel extends JPanel {
                 if (row == -1) return;
                 if (e.getClickCount() != 2) return;
 
-                Ticket ticket = (Ticket) model.getValueAt(tableTicket.getSelectedRow(), 0);
+                Ticket ticket = model.getTicket(tableTicket.convertRowIndexToModel(row));
                 TicketDialog frame = new TicketDialog(ticket);
 
                 frame.setModal(true);
@@ -50,32 +56,39 @@ public class TicketListPanel extends JPanel {
             }
         });
 
-        Helpers.addOnTicketSavedListener(ticket -> {
-            model.addRow(new Object[]{ticket, ticket.getBus(), ticket.getOwner(), ticket.getSeatNumber(), ticket.getBaggage() == null ? "None" : ticket.getBaggage()});
+        tfSearch.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                sorter.setFilterText(tfSearch.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                sorter.setFilterText(tfSearch.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        Helpers.addOnTicketsSavedListener(tickets -> {
+            model.addAll(tickets);
             totalTicketLabel.setText("Total Ticket Count: " + Helpers.tickets.size());
         });
 
         Helpers.addOnTicketRemoveListener(ticket -> {
-            for (int i = 0, limit = model.getRowCount(); i < limit; i++) {
-                Ticket rowTicket = (Ticket) model.getValueAt(i, 0);
-                if (ticket.getId().equals(rowTicket.getId())) {
-                    model.removeRow(i);
-                    totalTicketLabel.setText("Total Ticket Count: " + Helpers.tickets.size());
-                    break;
-                }
-            }
+            model.remove(ticket);
+            totalTicketLabel.setText("Total Ticket Count: " + Helpers.tickets.size());
         });
     }
 
     private void initComponents() {
-        tableTicket = new JTable(model = new ReadOnlyTableModel(new Object[]{
-                "Number", "Direction", "Owner", "Seat", "Baggage"
-        }, 0));
-
-        for (Ticket ticket : Helpers.tickets) {
-            model.addRow(new Object[]{
-                    ticket, ticket.getBus(), ticket.getOwner(), ticket.getSeatNumber(), ticket.getBaggage() == null ? "None" : ticket.getBaggage()
-            });
-        }
+        model = new TicketTableModel();
+        model.addAll(Helpers.tickets.toList());
+
+        tableTicket = new JTable(model);
+        tableTicket.setRowSorter(sorter = new TicketRowSorter(model));
+        tfSearch = new JTextField();
     }
 }
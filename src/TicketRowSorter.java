@@ -0,0 +1,271 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Row sorter of the ticket table.
+ * The model rows are kept in the sorted order, compared by the sort keys computed by the model when the tickets are
+ * added. The visible rows are taken from that order by the matches the model keeps for its filter, thus changing the
+ * filter never sorts again, and is a single pass over the rows. A change of the model only merges the changed rows
+ * into the order.
+ */
+public class TicketRowSorter extends RowSorter<TicketTableModel> {
+    private static final int MAX_SORT_KEYS = 3;
+    private static final int[] NO_ROWS = new int[0];
+
+    private final TicketTableModel model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private int[] order = NO_ROWS;
+    private int[] viewToModel = NO_ROWS;
+    private int[] modelToView = NO_ROWS;
+    private int viewRowCount;
+
+    /**
+     * Instantiates a new Ticket row sorter.
+     *
+     * @param model Model of the ticket table.
+     */
+    public TicketRowSorter(TicketTableModel model) {
+        this.model = model;
+        resort();
+        updateView();
+    }
+
+    /**
+     * Filters the rows by a text, matching the ticket number, the passenger, the route or the seat.
+     *
+     * @param text Text to search, case insensitive. An empty text shows all the rows.
+     */
+    public void setFilterText(String text) {
+        int[] oldViewToModel = getViewToModel();
+        model.setFilter(text);
+        updateView();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public TicketTableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        checkColumn(column);
+
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        SortOrder sortOrder = SortOrder.ASCENDING;
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).getColumn() != column) continue;
+
+            if (i == 0 && keys.get(i).getSortOrder() == SortOrder.ASCENDING) sortOrder = SortOrder.DESCENDING;
+            keys.remove(i);
+            break;
+        }
+
+        keys.add(0, new SortKey(column, sortOrder));
+        if (keys.size() > MAX_SORT_KEYS) keys = keys.subList(0, MAX_SORT_KEYS);
+        setSortKeys(keys);
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (index < 0 || index >= viewRowCount) throw new IndexOutOfBoundsException("Invalid index: " + index);
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= model.getRowCount()) throw new IndexOutOfBoundsException("Invalid index: " + index);
+        return modelToView[index];
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> next = keys == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(keys));
+        for (SortKey key : next) checkColumn(key.getColumn());
+        if (next.equals(sortKeys)) return;
+
+        sortKeys = next;
+        fireSortOrderChanged();
+
+        int[] oldViewToModel = getViewToModel();
+        resort();
+        updateView();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewRowCount;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        sortKeys = Collections.emptyList();
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        int[] oldViewToModel = getViewToModel();
+        resort();
+        updateView();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int[] oldViewToModel = getViewToModel();
+        order = merge(order, order.length, rangeOf(firstRow, endRow));
+        updateView();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int[] oldViewToModel = getViewToModel();
+        int deleted = endRow - firstRow + 1, length = 0;
+        for (int row : order) {
+            if (row < firstRow) order[length++] = row;
+            else if (row > endRow) order[length++] = row - deleted;
+        }
+
+        order = Arrays.copyOf(order, length);
+        updateView();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        int[] oldViewToModel = getViewToModel();
+        if (!sortKeys.isEmpty()) {
+            // The updated rows may have moved, thus they are taken out of the order and merged in again.
+            int length = 0;
+            for (int row : order) {
+                if (row < firstRow || row > endRow) order[length++] = row;
+            }
+
+            order = merge(order, length, rangeOf(firstRow, endRow));
+        }
+
+        updateView();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        rowsUpdated(firstRow, endRow);
+    }
+
+    private void resort() {
+        order = sort(rangeOf(0, model.getRowCount() - 1));
+    }
+
+    private void updateView() {
+        int rowCount = model.getRowCount();
+        if (viewToModel.length != rowCount) viewToModel = new int[rowCount];
+        if (modelToView.length != rowCount) modelToView = new int[rowCount];
+
+        viewRowCount = 0;
+        for (int row : order) {
+            if (model.isIncluded(row)) {
+                modelToView[row] = viewRowCount;
+                viewToModel[viewRowCount++] = row;
+            } else {
+                modelToView[row] = -1;
+            }
+        }
+    }
+
+    private int[] getViewToModel() {
+        return Arrays.copyOf(viewToModel, viewRowCount);
+    }
+
+    /**
+     * Sorts model rows by the sort keys, and by the row index when the keys are equal.
+     */
+    private int[] sort(int[] rows) {
+        if (sortKeys.isEmpty() || rows.length < 2) return rows;
+
+        Integer[] boxed = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) boxed[i] = rows[i];
+        Arrays.sort(boxed, comparator());
+
+        for (int i = 0; i < rows.length; i++) rows[i] = boxed[i];
+        return rows;
+    }
+
+    /**
+     * Merges model rows into the first rows of the order, keeping it sorted.
+     */
+    private int[] merge(int[] order, int length, int[] rows) {
+        if (sortKeys.isEmpty()) {
+            int[] merged = Arrays.copyOf(order, length + rows.length);
+            System.arraycopy(rows, 0, merged, length, rows.length);
+            return merged;
+        }
+
+        rows = sort(rows);
+        Comparator<Integer> comparator = comparator();
+        int[] merged = new int[length + rows.length];
+        int from = 0, to = 0;
+        for (int row : rows) {
+            // The position of each row is searched, so that merging a few rows into many takes a few comparisons.
+            int low = from, high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (comparator.compare(order[middle], row) <= 0) low = middle + 1;
+                else high = middle;
+            }
+
+            System.arraycopy(order, from, merged, to, low - from);
+            to += low - from;
+            merged[to++] = row;
+            from = low;
+        }
+
+        System.arraycopy(order, from, merged, to, length - from);
+        return merged;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Comparator<Integer> comparator() {
+        List<SortKey> keys = sortKeys;
+        return (first, second) -> {
+            for (SortKey key : keys) {
+                if (key.getSortOrder() == SortOrder.UNSORTED) continue;
+
+                Comparable<Object> value = (Comparable<Object>) model.getSortKey(first, key.getColumn());
+                int result = value.compareTo(model.getSortKey(second, key.getColumn()));
+                if (result != 0) return key.getSortOrder() == SortOrder.ASCENDING ? result : -result;
+            }
+
+            return Integer.compare(first, second);
+        };
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= model.getColumnCount()) {
+            throw new IndexOutOfBoundsException("Column " + column + " out of range");
+        }
+    }
+
+    private static int[] rangeOf(int firstRow, int endRow) {
+        int[] rows = new int[Math.max(0, endRow - firstRow + 1)];
+        for (int i = 0; i < rows.length; i++) rows[i] = firstRow + i;
+        return rows;
+    }
+}
@@ -0,0 +1,307 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory store of the bought tickets.
+ * Tickets are indexed by their id, by their journey (bus) and by the id of their owner, hence adding, removing,
+ * checking and looking up tickets do not require scanning all the tickets in the system.
+ * <p>
+ * The seat of a new ticket is claimed on the seat occupancy of its journey, or sold from its hold, without locking,
+ * before the ticket is indexed, hence a seat is never sold twice.
+ * <p>
+ * The tickets of a snapshot can be attached without decoding them: their seats are marked as sold and their ids are
+ * known at once, and each of them is decoded when it is looked up, or in batches by {@link #decodeSnapshot(int)}.
+ */
+public class TicketStore implements Iterable<Ticket> {
+    private LinkedHashMap<String, Ticket> byId = new LinkedHashMap<>();
+    private final HashMap<JourneyKey, LinkedHashSet<Ticket>> byJourney = new HashMap<>();
+    private final HashMap<Long, LinkedHashSet<Ticket>> byPassenger = new HashMap<>();
+    private final ConcurrentHashMap<JourneyKey, SeatOccupancy> occupancies = new ConcurrentHashMap<>();
+
+    private Snapshot snapshot;
+    // Records of the snapshot not decoded yet, by the id of their tickets, and by their indexes.
+    private HashMap<String, Integer> snapshotRecords;
+    private BitSet pendingRecords;
+    // Tickets decoded from the snapshot, by their record indexes, to keep the order of the snapshot.
+    private Ticket[] snapshotTickets;
+    private ArrayList<Ticket> decodedTickets = new ArrayList<>();
+
+    /**
+     * Adds a new ticket to the store, claiming its seat.
+     *
+     * @param ticket Ticket to add.
+     * @return True if added, false if its seat is taken or a ticket with the same id already exists.
+     */
+    public boolean add(Ticket ticket) {
+        return add(ticket, null);
+    }
+
+    /**
+     * Adds a new ticket to the store, selling its seat held for it, or claiming its seat if the hold has expired.
+     *
+     * @param ticket Ticket to add.
+     * @param hold   Hold of the seat of the ticket, or null if it is not held.
+     * @return True if added, false if its seat is taken or a ticket with the same id already exists.
+     */
+    public boolean add(Ticket ticket, SeatHold hold) {
+        SeatOccupancy occupancy = ticket.getBus() == null ? null : getOccupancy(ticket.getBus());
+        if (occupancy != null) {
+            boolean isSold = hold != null && hold.isOf(ticket) && hold.trySell();
+            if (!isSold && !occupancy.tryClaim(ticket.getSeatNumber())) return false;
+        }
+
+        synchronized (this) {
+            if (!byId.containsKey(ticket.getId()) && !isPending(ticket.getId())) {
+                index(ticket);
+                return true;
+            }
+        }
+
+        if (occupancy != null) occupancy.markFree(ticket.getSeatNumber());
+        return false;
+    }
+
+    /**
+     * Adds a ticket sold before, like the ones saved, marking its seat as sold even if it is taken.
+     *
+     * @param ticket Ticket to add.
+     * @return True if added, false if a ticket with the same id already exists.
+     */
+    public synchronized boolean restore(Ticket ticket) {
+        if (byId.containsKey(ticket.getId()) || isPending(ticket.getId())) return false;
+
+        if (ticket.getBus() != null) getOccupancy(ticket.getBus()).markSold(ticket.getSeatNumber());
+        index(ticket);
+        return true;
+    }
+
+    /**
+     * Attaches the tickets of a snapshot, without decoding them. Only the ids and the seats of the tickets are read,
+     * marking their seats as sold. The tickets whose ids exist in the store already are skipped.
+     *
+     * @param snapshot Snapshot to attach, which is closed once all its tickets are decoded, or the store is cleared.
+     */
+    public synchronized void attach(Snapshot snapshot) {
+        releaseSnapshot();
+
+        int count = snapshot.getTicketCount();
+        this.snapshot = snapshot;
+        snapshotRecords = new HashMap<>(count * 4 / 3 + 1);
+        pendingRecords = new BitSet(count);
+        snapshotTickets = new Ticket[count];
+        for (int i = 0; i < count; i++) {
+            String id = snapshot.getTicketId(i);
+            if (byId.containsKey(id) || snapshotRecords.putIfAbsent(id, i) != null) continue;
+
+            pendingRecords.set(i);
+            Bus bus = snapshot.getTicketJourney(i);
+            if (bus != null) getOccupancy(bus).markSold(snapshot.getTicketSeat(i));
+        }
+
+        if (snapshotRecords.isEmpty()) completeSnapshot();
+    }
+
+    /**
+     * Decodes the next tickets of the attached snapshot.
+     *
+     * @param count Maximum number of the tickets to decode.
+     * @return The tickets decoded since the last call, including the ones decoded on their look ups, which are still
+     * in the store. Empty once all the tickets of the snapshot are decoded and returned.
+     */
+    public synchronized ArrayList<Ticket> decodeSnapshot(int count) {
+        decodePending(count);
+
+        ArrayList<Ticket> decoded = new ArrayList<>(decodedTickets.size());
+        for (Ticket ticket : decodedTickets) {
+            if (byId.get(ticket.getId()) == ticket) decoded.add(ticket);
+        }
+
+        decodedTickets = new ArrayList<>();
+        return decoded;
+    }
+
+    private void decodePending(int count) {
+        for (int i = 0; i < count && snapshot != null; i++) {
+            decode(snapshot.getTicketId(pendingRecords.nextSetBit(0)));
+        }
+    }
+
+    private boolean isPending(String id) {
+        return snapshotRecords != null && snapshotRecords.containsKey(id);
+    }
+
+    private Ticket decode(String id) {
+        Integer record = snapshotRecords == null ? null : snapshotRecords.remove(id);
+        if (record == null) return null;
+
+        Ticket ticket = snapshot.getTicket(record);
+        pendingRecords.clear(record);
+        snapshotTickets[record] = ticket;
+        decodedTickets.add(ticket);
+        index(ticket);
+        if (snapshotRecords.isEmpty()) completeSnapshot();
+        return ticket;
+    }
+
+    private void completeSnapshot() {
+        // The tickets of the snapshot come before the ones added after it was written, as when they were decoded up front.
+        LinkedHashMap<String, Ticket> ordered = new LinkedHashMap<>(byId.size() * 4 / 3 + 1);
+        for (Ticket ticket : snapshotTickets) {
+            if (ticket != null && byId.get(ticket.getId()) == ticket) ordered.put(ticket.getId(), ticket);
+        }
+
+        for (Ticket ticket : byId.values()) ordered.putIfAbsent(ticket.getId(), ticket);
+        byId = ordered;
+        releaseSnapshot();
+    }
+
+    private void releaseSnapshot() {
+        if (snapshot == null) return;
+
+        snapshot.close();
+        snapshot = null;
+        snapshotRecords = null;
+        pendingRecords = null;
+        snapshotTickets = null;
+    }
+
+    private void index(Ticket ticket) {
+        byId.put(ticket.getId(), ticket);
+        if (ticket.getBus() != null) {
+            byJourney.computeIfAbsent(ticket.getBus().getKey(), k -> new LinkedHashSet<>()).add(ticket);
+        }
+
+        byPassenger.computeIfAbsent(ticket.getOwnerId(), k -> new LinkedHashSet<>()).add(ticket);
+    }
+
+    /**
+     * Removes a ticket from the store, by its id.
+     *
+     * @param ticket Ticket to remove.
+     * @return The removed ticket instance of the store, or null if there was not.
+     */
+    public synchronized Ticket remove(Ticket ticket) {
+        decode(ticket.getId());
+        Ticket stored = byId.remove(ticket.getId());
+        if (stored == null) return null;
+
+        if (stored.getBus() != null) {
+            JourneyKey key = stored.getBus().getKey();
+            LinkedHashSet<Ticket> journeyTickets = byJourney.get(key);
+            if (journeyTickets != null && journeyTickets.remove(stored) && journeyTickets.isEmpty()) {
+                byJourney.remove(key);
+            }
+
+            getOccupancy(stored.getBus()).markFree(stored.getSeatNumber());
+        }
+
+        LinkedHashSet<Ticket> passengerTickets = byPassenger.get(stored.getOwnerId());
+        if (passengerTickets != null && passengerTickets.remove(stored) && passengerTickets.isEmpty()) {
+            byPassenger.remove(stored.getOwnerId());
+        }
+
+        return stored;
+    }
+
+    /**
+     * Checks whether a ticket with the same id exists in the store.
+     *
+     * @param ticket Ticket to check.
+     * @return True if the store contains the ticket.
+     */
+    public synchronized boolean contains(Ticket ticket) {
+        return byId.containsKey(ticket.getId()) || isPending(ticket.getId());
+    }
+
+    /**
+     * Gets a ticket by its id.
+     *
+     * @param id ID of the ticket.
+     * @return The ticket if exists, null otherwise.
+     */
+    public synchronized Ticket get(String id) {
+        Ticket ticket = byId.get(id);
+        return ticket != null ? ticket : decode(id);
+    }
+
+    /**
+     * Gets the tickets bought for a journey.
+     *
+     * @param bus Bus of the journey.
+     * @return The list of the tickets of the journey.
+     */
+    public synchronized ArrayList<Ticket> getByJourney(Bus bus) {
+        decodePending(Integer.MAX_VALUE);
+        LinkedHashSet<Ticket> journeyTickets = byJourney.get(bus.getKey());
+        return journeyTickets == null ? new ArrayList<>() : new ArrayList<>(journeyTickets);
+    }
+
+    /**
+     * Gets the seat occupancy of a journey.
+     * If the journey is not known yet, its occupancy is created from the seat count and the sold seat of the bus.
+     *
+     * @param bus Bus of the journey.
+     * @return The seat occupancy of the journey.
+     */
+    public SeatOccupancy getOccupancy(Bus bus) {
+        return occupancies.computeIfAbsent(bus.getKey(), k -> new SeatOccupancy(bus.getSeatNumber(), bus.getSoldSeat()));
+    }
+
+    /**
+     * Gets the tickets owned by a passenger.
+     *
+     * @param passengerId ID of the passenger.
+     * @return The list of the tickets of the passenger.
+     */
+    public synchronized ArrayList<Ticket> getByPassenger(long passengerId) {
+        decodePending(Integer.MAX_VALUE);
+        LinkedHashSet<Ticket> passengerTickets = byPassenger.get(passengerId);
+        return passengerTickets == null ? new ArrayList<>() : new ArrayList<>(passengerTickets);
+    }
+
+    /**
+     * Gets the number of the tickets in the store.
+     *
+     * @return The number of the tickets.
+     */
+    public synchronized int size() {
+        return byId.size() + (snapshotRecords == null ? 0 : snapshotRecords.size());
+    }
+
+    /**
+     * Removes all the tickets from the store.
+     */
+    public synchronized void clear() {
+        releaseSnapshot();
+        decodedTickets = new ArrayList<>();
+        byId.clear();
+        byJourney.clear();
+        byPassenger.clear();
+        occupancies.clear();
+    }
+
+    /**
+     * Gets a snapshot of the tickets in the store, in the order they were added.
+     *
+     * @return The list of the tickets.
+     */
+    public synchronized ArrayList<Ticket> toList() {
+        decodePending(Integer.MAX_VALUE);
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * Iterates over a snapshot of the tickets, hence the store can be modified while iterating.
+     *
+     * @return Iterator of the tickets.
+     */
+    @Override
+    public Iterator<Ticket> iterator() {
+        return toList().iterator();
+    }
+}
@@ -0,0 +1,220 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+
+/**
+ * Table model of the tickets in the system.
+ * The rows are kept as columns of arrays, with the displayed texts, the sort keys and the searched text of each row
+ * computed once, when the ticket is added. A ticket is found by its id through an index, and removed by moving the
+ * last row into its place, hence adding and removing a ticket never depends on the number of the rows.
+ * <p>
+ * The rows matching the filter are kept in a bit set. When the filter is narrowed, like by typing one more letter,
+ * only the rows matching the previous filter are tested again.
+ */
+public class TicketTableModel extends AbstractTableModel {
+    /**
+     * Index of the seat column, whose sort keys are integers. The sort keys of the other columns are strings.
+     */
+    public static final int SEAT_COLUMN = 3;
+
+    private static final String[] COLUMN_NAMES = {"Number", "Direction", "Owner", "Seat", "Baggage"};
+    private static final Locale LOCALE = Locale.forLanguageTag("tr");
+    private static final String ALPHABET = "abcçdefgğhıijklmnoöpqrsştuüvwxyz";
+    private static final char ALPHABET_BASE = '\u2000';
+
+    private final HashMap<String, Integer> rowsById = new HashMap<>();
+    private Ticket[] tickets = new Ticket[16];
+    private String[][] texts = new String[COLUMN_NAMES.length][16];
+    private String[][] sortKeys = new String[COLUMN_NAMES.length][16];
+    private String[] searchTexts = new String[16];
+    private final BitSet matches = new BitSet();
+    private String filter = "";
+    private int size = 0;
+
+    /**
+     * Adds tickets to the end, skipping the ones already in the model.
+     *
+     * @param added Tickets to add.
+     */
+    public void addAll(Collection<Ticket> added) {
+        int firstRow = size;
+        ensureCapacity(size + added.size());
+
+        // The tickets of a bus share the texts of the direction, which are computed for the first one.
+        IdentityHashMap<Bus, Integer> rowsByBus = new IdentityHashMap<>();
+        for (Ticket ticket : added) {
+            if (rowsById.containsKey(ticket.getId())) continue;
+
+            int row = size++;
+            Integer busRow = rowsByBus.putIfAbsent(ticket.getBus(), row);
+            set(row, ticket, busRow == null ? -1 : busRow);
+            rowsById.put(ticket.getId(), row);
+        }
+
+        if (size > firstRow) fireTableRowsInserted(firstRow, size - 1);
+    }
+
+    /**
+     * Removes a ticket, by its id.
+     *
+     * @param ticket Ticket to remove.
+     */
+    public void remove(Ticket ticket) {
+        Integer boxedRow = rowsById.remove(ticket.getId());
+        if (boxedRow == null) return;
+
+        int row = boxedRow, lastRow = --size;
+        if (row != lastRow) {
+            tickets[row] = tickets[lastRow];
+            for (int column = 0; column < COLUMN_NAMES.length; column++) {
+                texts[column][row] = texts[column][lastRow];
+                sortKeys[column][row] = sortKeys[column][lastRow];
+            }
+
+            searchTexts[row] = searchTexts[lastRow];
+            matches.set(row, matches.get(lastRow));
+            rowsById.put(tickets[row].getId(), row);
+        }
+
+        tickets[lastRow] = null;
+        searchTexts[lastRow] = null;
+        matches.clear(lastRow);
+        for (int column = 0; column < COLUMN_NAMES.length; column++) {
+            texts[column][lastRow] = null;
+            sortKeys[column][lastRow] = null;
+        }
+
+        fireTableRowsDeleted(lastRow, lastRow);
+        if (row != lastRow) fireTableRowsUpdated(row, row);
+    }
+
+    /**
+     * Gets the ticket of a row.
+     *
+     * @param row Index of the row in the model.
+     * @return The ticket.
+     */
+    public Ticket getTicket(int row) {
+        return tickets[row];
+    }
+
+    /**
+     * Gets the key of a cell to sort by.
+     *
+     * @param row    Index of the row in the model.
+     * @param column Index of the column.
+     * @return The sort key, an integer for the seat column and a string in the order of the
+     * Turkish alphabet for the others.
+     */
+    public Comparable<?> getSortKey(int row, int column) {
+        if (column == SEAT_COLUMN) return tickets[row].getSeatNumber();
+        return sortKeys[column][row];
+    }
+
+    /**
+     * Sets the filter of the rows, matching the ticket number, the passenger, the route or the seat.
+     *
+     * @param value Text to search, case insensitive. An empty text matches all the rows.
+     */
+    public void setFilter(String value) {
+        String next = value.trim().toLowerCase(LOCALE);
+        if (next.equals(filter)) return;
+
+        if (!next.contains(filter)) {
+            // Not a narrower filter, thus every row is tested again.
+            matches.set(0, size);
+        }
+
+        filter = next;
+        for (int row = matches.nextSetBit(0); row >= 0 && row < size; row = matches.nextSetBit(row + 1)) {
+            if (!searchTexts[row].contains(filter)) matches.clear(row);
+        }
+    }
+
+    /**
+     * Checks whether a row matches the filter.
+     *
+     * @param row Index of the row in the model.
+     * @return True if the row matches.
+     */
+    public boolean isIncluded(int row) {
+        return matches.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return texts[column][row];
+    }
+
+    private void set(int row, Ticket ticket, int busRow) {
+        Bus bus = ticket.getBus();
+        Passenger owner = ticket.getOwner();
+        Baggage baggage = ticket.getBaggage();
+
+        tickets[row] = ticket;
+        texts[0][row] = ticket.getId();
+        texts[2][row] = owner == null ? "" : owner.toString();
+        texts[3][row] = String.valueOf(ticket.getSeatNumber());
+        texts[4][row] = baggage == null ? "None" : baggage.toString();
+
+        if (busRow < 0) {
+            texts[1][row] = bus == null ? "" : bus.toString();
+            sortKeys[1][row] = toSortKey(texts[1][row]);
+        } else {
+            texts[1][row] = texts[1][busRow];
+            sortKeys[1][row] = sortKeys[1][busRow];
+        }
+
+        for (int column = 0; column < COLUMN_NAMES.length; column++) {
+            if (column != 1 && column != SEAT_COLUMN) sortKeys[column][row] = toSortKey(texts[column][row]);
+        }
+
+        searchTexts[row] = String.join("\n", texts[0][row], texts[1][row], texts[2][row], texts[3][row]).toLowerCase(LOCALE);
+        matches.set(row, searchTexts[row].contains(filter));
+    }
+
+    /**
+     * Converts a text to a key which sorts case insensitively in the order of the Turkish alphabet when compared as a
+     * string, which is much cheaper than a collation key.
+     */
+    private static String toSortKey(String text) {
+        char[] chars = text.toLowerCase(LOCALE).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            int index = ALPHABET.indexOf(chars[i]);
+            if (index >= 0) chars[i] = (char) (ALPHABET_BASE + index);
+        }
+
+        return new String(chars);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= tickets.length) return;
+
+        int length = Math.max(capacity, tickets.length * 2);
+        tickets = Arrays.copyOf(tickets, length);
+        searchTexts = Arrays.copyOf(searchTexts, length);
+        for (int column = 0; column < COLUMN_NAMES.length; column++) {
+            texts[column] = Arrays.copyOf(texts[column], length);
+            sortKeys[column] = Arrays.copyOf(sortKeys[column], length);
+        }
+    }
+}
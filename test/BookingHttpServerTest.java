@@ -0,0 +1,216 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the statuses of the booking server, and of the remote booking service against it, with a stand-in booking
+ * service behind the server.
+ */
+public class BookingHttpServerTest {
+    private static final Location FROM = new Location("İSTANBUL (OTOGAR)", "100"), TO = new Location("ANKARA (OTOGAR)", "101");
+
+    private StubBookingService service;
+    private BookingHttpServer server;
+    private ProviderClient client;
+    private Bus bus;
+
+    @Before
+    public void setUp() throws IOException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        bus = new Bus("34 ST 500", 46, Location.intern(FROM), Location.intern(TO));
+        bus.setMovementDate(new Date(1798761600000L));
+        bus.setLandingDate(new Date(1798761600000L + 6L * 60 * 60 * 1000));
+        bus.setPassengers(new ArrayList<>());
+
+        service = new StubBookingService(bus);
+        server = new BookingHttpServer(service, new InetSocketAddress("127.0.0.1", 0), 4);
+        server.start();
+        client = new ProviderClient("http://127.0.0.1:" + server.getAddress().getPort(), 4, 1000, 5000);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        Helpers.tickets.clear();
+    }
+
+    @Test
+    public void purchaseRespondsCreatedThenConflict() throws Exception {
+        assertEquals(201, post(ticket("1", 1)).getStatus());
+        assertEquals(409, post(ticket("2", 1)).getStatus());
+        assertEquals(201, post(ticket("3", 2)).getStatus());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void purchaseOfInvalidTicketRespondsBadRequest() throws Exception {
+        assertEquals(400, send("POST", "tickets", "{".getBytes(StandardCharsets.UTF_8)).getStatus());
+        assertEquals(400, send("POST", "tickets", "{\"id\":\"1\",\"seatNumber\":1}".getBytes(StandardCharsets.UTF_8)).getStatus());
+        assertTrue(service.tickets.isEmpty());
+    }
+
+    @Test
+    public void cancelRespondsNoContentThenNotFound() throws Exception {
+        assertEquals(201, post(ticket("1", 1)).getStatus());
+        assertEquals(204, send("DELETE", "tickets/1", null).getStatus());
+        assertEquals(404, send("DELETE", "tickets/1", null).getStatus());
+    }
+
+    @Test
+    public void unknownRequestsAreRejected() throws Exception {
+        assertEquals(404, send("GET", "buses", null).getStatus());
+        assertEquals(405, send("PUT", "tickets", null).getStatus());
+        assertEquals(405, send("GET", "tickets/1", null).getStatus());
+        assertEquals(400, send("GET", "journeys?from=100", null).getStatus());
+    }
+
+    @Test
+    public void searchRespondsJourneysWithSoldSeats() throws Exception {
+        LinkedHashMap<String, String> query = new LinkedHashMap<>();
+        query.put("from", FROM.getHtmlValue());
+        query.put("fromName", FROM.getName());
+        query.put("to", TO.getHtmlValue());
+        query.put("toName", TO.getName());
+        query.put("date", DateCodec.formatIso(bus.getMovementDate()));
+        ProviderClient.Response response = send("GET", "journeys?" + new String(ProviderClient.encodeForm(query), StandardCharsets.UTF_8), null);
+
+        assertEquals(200, response.getStatus());
+        JSONArray journeys = new JSONArray(new String(response.getBody(), StandardCharsets.UTF_8));
+        assertEquals(1, journeys.length());
+        JSONObject journey = journeys.getJSONObject(0);
+        assertEquals(bus.getCode(), journey.getJSONObject("bus").getString("code"));
+        assertEquals(0, journey.getJSONArray("soldSeats").length());
+    }
+
+    @Test
+    public void listingIsCompressedWhenAccepted() throws Exception {
+        assertEquals(201, post(ticket("1", 1)).getStatus());
+        assertEquals(201, post(ticket("2", 2)).getStatus());
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/tickets").openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("gzip", connection.getContentEncoding());
+
+        JSONArray tickets;
+        try (InputStream input = new GZIPInputStream(connection.getInputStream())) {
+            tickets = new JSONArray(new String(readFully(input), StandardCharsets.UTF_8));
+        }
+        assertEquals(2, tickets.length());
+
+        connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/tickets").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertNull(connection.getContentEncoding());
+        try (InputStream input = connection.getInputStream()) {
+            assertEquals(2, new JSONArray(new String(readFully(input), StandardCharsets.UTF_8)).length());
+        }
+    }
+
+    @Test
+    public void remotePurchasesMirrorTheAcceptedTickets() throws Exception {
+        RemoteBookingService remote = new RemoteBookingService(client);
+
+        Ticket ticket = ticket("1", 1);
+        assertTrue(remote.purchase(ticket, null).get(5, TimeUnit.SECONDS));
+        assertNotNull(Helpers.tickets.get("1"));
+
+        // Sold by another agent, which this process has not seen.
+        assertTrue(service.purchase(ticket("2", 2), null).join());
+        assertFalse(remote.purchase(ticket("3", 2), null).get(5, TimeUnit.SECONDS));
+        assertNull(Helpers.tickets.get("3"));
+        assertTrue(Helpers.tickets.getOccupancy(bus).isSoldLocally(2));
+
+        assertEquals(2, remote.listTickets().get(5, TimeUnit.SECONDS).size());
+
+        assertTrue(remote.cancel(ticket).get(5, TimeUnit.SECONDS));
+        assertNull(Helpers.tickets.get("1"));
+        assertFalse(remote.cancel(ticket).get(5, TimeUnit.SECONDS));
+    }
+
+    private ProviderClient.Response post(Ticket ticket) throws Exception {
+        return send("POST", "tickets", ticket.toJson().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ProviderClient.Response send(String method, String path, byte[] body) throws Exception {
+        return client.send(method, path, body == null ? null : "application/json; charset=UTF-8", body).get(5, TimeUnit.SECONDS);
+    }
+
+    private Ticket ticket(String id, int seat) {
+        Ticket ticket = new Ticket(id);
+        ticket.setBus(bus);
+        ticket.setSeatNumber(seat);
+        return ticket;
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+        return output.toByteArray();
+    }
+
+    /**
+     * Booking service of a single journey, which sells each of its seats once.
+     */
+    private static class StubBookingService implements BookingService {
+        private final Bus bus;
+        private final HashMap<String, Ticket> tickets = new HashMap<>();
+        private final HashMap<Integer, Ticket> seats = new HashMap<>();
+
+        StubBookingService(Bus bus) {
+            this.bus = bus;
+        }
+
+        @Override
+        public CompletableFuture<ArrayList<Bus>> searchJourneys(Location from, Location to, Date date) {
+            return CompletableFuture.completedFuture(new ArrayList<>(Collections.singletonList(bus)));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> purchase(Ticket ticket, SeatHold hold) {
+            if (seats.containsKey(ticket.getSeatNumber())) return CompletableFuture.completedFuture(false);
+
+            seats.put(ticket.getSeatNumber(), ticket);
+            tickets.put(ticket.getId(), ticket);
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> cancel(Ticket ticket) {
+            Ticket removed = tickets.remove(ticket.getId());
+            if (removed != null) seats.remove(removed.getSeatNumber());
+            return CompletableFuture.completedFuture(removed != null);
+        }
+
+        @Override
+        public synchronized CompletableFuture<ArrayList<Ticket>> listTickets() {
+            return CompletableFuture.completedFuture(new ArrayList<>(tickets.values()));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the journey response parser on the edge cases of the values.
+ */
+public class JourneyResponseParserTest {
+    private static final Location FROM = new Location("İSTANBUL (OTOGAR)", "100"), TO = new Location("ANKARA (OTOGAR)", "101");
+
+    @Test
+    public void keepsNonAsciiBytesOfUnquotedValues() throws ParseException {
+        // The bytes of "İ" are negative as signed bytes, and must not end the value as a whitespace would.
+        byte[] data = row("\"TOTALSEAT\":46,\"GEN_SOLDSEAT\":12İ").getBytes(StandardCharsets.UTF_8);
+        try {
+            JourneyResponseParser.parse(data, FROM, TO, bus -> {
+            });
+            fail("An integer followed by non-ASCII bytes is invalid");
+        } catch (ParseException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void parsesIntegers() throws ParseException {
+        ArrayList<Bus> buses = parse(row("\"TOTALSEAT\":46,\"GEN_SOLDSEAT\":12.0"));
+        assertEquals(46, buses.get(0).getSeatNumber());
+        assertEquals(12, buses.get(0).getSoldSeat());
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsEmptyIntegers() throws ParseException {
+        parse(row("\"TOTALSEAT\":\"\",\"GEN_SOLDSEAT\":12"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsSignOnlyIntegers() throws ParseException {
+        parse(row("\"TOTALSEAT\":46,\"GEN_SOLDSEAT\":-"));
+    }
+
+    private static ArrayList<Bus> parse(String response) throws ParseException {
+        ArrayList<Bus> buses = new ArrayList<>();
+        JourneyResponseParser.parse(response.getBytes(StandardCharsets.UTF_8), FROM, TO, buses::add);
+        return buses;
+    }
+
+    private static String row(String seats) {
+        return "{\"oneWay\":{\"rc1\":[{\"PLAKA\":\"34 MT 100\"," + seats + ",\"BINIS_SAATI\":\"08:30\","
+                + "\"SEFERDATE\":\"2027-01-01T00:00:00\",\"GEN_WEBPRICE\":95.0,"
+                + "\"INIS_ANAYOLDATE\":\"2027-01-01T00:00:00\",\"INIS_SAATI\":\"14:45\"}]}}";
+    }
+}
@@ -0,0 +1,199 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the provider client and the journey response parser, against a local stand-in of the provider.
+ */
+public class ProviderClientTest {
+    private static final String JOURNEY_LIST = "{\"bothWay\":{\"rc1\":[]},\"oneWay\":{\"rc1\":[{"
+            + "\"PLAKA\":\"34 MT 100\",\"UNIQUE_KEY\":\"1\",\"FIRMA\":\"METRO TURİZM\",\"TOTALSEAT\":46,"
+            + "\"BINIS_SAATI\":\"08:30\",\"SEFERDATE\":\"2027-01-01T00:00:00\",\"GEN_SOLDSEAT\":12,"
+            + "\"GEN_WEBPRICE\":95.0,\"INIS_ANAYOLDATE\":\"2027-01-01T00:00:00\",\"INIS_SAATI\":\"14:45\","
+            + "\"ACIKLAMA\":\"Koltuk arası \\\"geniş\\\"\",\"KAMPANYA\":null}]}}";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ProviderClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) client.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void decompressesGzipResponses() throws Exception {
+        byte[] body = JOURNEY_LIST.getBytes(StandardCharsets.UTF_8);
+        server.createContext("/GetJourneyList", exchange -> {
+            readFully(exchange.getRequestBody());
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+                output.write(body);
+            }
+
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            respond(exchange, 200, compressed.toByteArray());
+        });
+        client = createClient(4, 1000);
+
+        byte[] response = client.post("GetJourneyList", form()).get(5, TimeUnit.SECONDS);
+        assertArrayEquals(body, response);
+
+        List<Bus> buses = new ArrayList<>();
+        Location from = new Location("İSTANBUL (OTOGAR)", "100"), to = new Location("ANKARA (OTOGAR)", "101");
+        JourneyResponseParser.parse(response, from, to, buses::add);
+        assertEquals(1, buses.size());
+        assertEquals("34 MT 100", buses.get(0).getCode());
+        assertEquals(46, buses.get(0).getSeatNumber());
+        assertEquals(12, buses.get(0).getSoldSeat());
+        assertEquals(95.0, buses.get(0).getPrice(), 0);
+    }
+
+    @Test
+    public void postingFailsOnErrorStatus() throws Exception {
+        server.createContext("/GetJourneyList", exchange -> {
+            readFully(exchange.getRequestBody());
+            respond(exchange, 503, "busy".getBytes(StandardCharsets.UTF_8));
+        });
+        client = createClient(4, 1000);
+
+        try {
+            client.post("GetJourneyList", form()).join();
+            fail("Posting should fail on a 503 response");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ProviderClient.ProviderException);
+            assertTrue(e.getCause().getCause().getMessage().contains("503"));
+        }
+    }
+
+    @Test
+    public void sendingCompletesNormallyOnErrorStatus() throws Exception {
+        server.createContext("/tickets/1", exchange -> respond(exchange, 404, "missing".getBytes(StandardCharsets.UTF_8)));
+        client = createClient(4, 1000);
+
+        ProviderClient.Response response = client.send("DELETE", "tickets/1", null, null).get(5, TimeUnit.SECONDS);
+        assertEquals(404, response.getStatus());
+        assertFalse(response.isSuccessful());
+        assertArrayEquals("missing".getBytes(StandardCharsets.UTF_8), response.getBody());
+    }
+
+    @Test
+    public void readTimeoutFailsTheRequestAndReleasesItsPermit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            respond(exchange, 200, new byte[0]);
+        });
+        server.createContext("/fast", exchange -> respond(exchange, 200, "ok".getBytes(StandardCharsets.UTF_8)));
+        client = createClient(1, 200);
+
+        try {
+            client.send("GET", "slow", null, null).join();
+            fail("The request should time out");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ProviderClient.ProviderException);
+            assertTrue(e.getCause().getCause() instanceof SocketTimeoutException);
+        } finally {
+            release.countDown();
+        }
+
+        // The single permit is released by the timed out request.
+        assertEquals(200, client.send("GET", "fast", null, null).get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    public void requestsInFlightAreCapped() throws Exception {
+        int maxConcurrency = 3, requestCount = 12;
+        AtomicInteger inFlight = new AtomicInteger(), maxInFlight = new AtomicInteger();
+        server.createContext("/GetJourneyList", exchange -> {
+            readFully(exchange.getRequestBody());
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            inFlight.decrementAndGet();
+            respond(exchange, 200, "{}".getBytes(StandardCharsets.UTF_8));
+        });
+        client = createClient(maxConcurrency, 5000);
+
+        ArrayList<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < requestCount; i++) futures.add(client.post("GetJourneyList", form()));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        assertTrue("At most " + maxConcurrency + " requests in flight, but " + maxInFlight.get(), maxInFlight.get() <= maxConcurrency);
+        assertTrue("Requests run concurrently up to the limit", maxInFlight.get() > 1);
+    }
+
+    private ProviderClient createClient(int maxConcurrency, int readTimeout) {
+        return new ProviderClient("http://127.0.0.1:" + server.getAddress().getPort(), maxConcurrency, 1000, readTimeout);
+    }
+
+    private static LinkedHashMap<String, String> form() {
+        LinkedHashMap<String, String> form = new LinkedHashMap<>();
+        form.put("boarding", "100");
+        form.put("landing", "101");
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+        return output.toByteArray();
+    }
+}
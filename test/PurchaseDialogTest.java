@@ -0,0 +1,27 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the validation of the TC identity numbers.
+ */
+public class PurchaseDialogTest {
+    @Test
+    public void acceptsValidIdentifiers() {
+        assertTrue(PurchaseDialog.isIdentifierValid(10000000146L));
+    }
+
+    @Test
+    public void acceptsValidIdentifiersWithNegativeCheckDifference() {
+        // Seven times the odd digits minus the even ones is 7 - 36 = -29, whose check digit is 1, not -9.
+        assertTrue(PurchaseDialog.isIdentifierValid(19090909018L));
+    }
+
+    @Test
+    public void rejectsInvalidIdentifiers() {
+        assertFalse(PurchaseDialog.isIdentifierValid(10000000147L));
+        assertFalse(PurchaseDialog.isIdentifierValid(19090909028L));
+        assertFalse(PurchaseDialog.isIdentifierValid(1000000014L));
+    }
+}
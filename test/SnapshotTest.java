@@ -0,0 +1,127 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the snapshot attached to the store, whose tickets are decoded on access while their seats are sold from the
+ * start, and which is released before the next snapshot replaces its file.
+ */
+public class SnapshotTest {
+    private static final int TICKET_COUNT = 20;
+    private static final Location FROM = new Location("İSTANBUL (OTOGAR)", "100"), TO = new Location("ANKARA (OTOGAR)", "101");
+
+    private Path folder, path;
+    private Bus bus;
+    private TicketStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("snapshot-test");
+        path = folder.resolve("tickets.snapshot");
+        bus = new Bus("34 ST 500", 46, Location.intern(FROM), Location.intern(TO));
+        bus.setMovementDate(new Date(1798761600000L));
+
+        ArrayList<Ticket> tickets = new ArrayList<>();
+        for (int i = 1; i <= TICKET_COUNT; i++) {
+            Passenger passenger = new Passenger();
+            passenger.setId(10000000000L + i);
+            bus.getPassengers().add(passenger);
+
+            Ticket ticket = new Ticket(String.valueOf(i));
+            ticket.setBus(bus);
+            ticket.setOwner(passenger);
+            ticket.setSeatNumber(i);
+            tickets.add(ticket);
+        }
+
+        Snapshot.write(tickets, path);
+        store = new TicketStore();
+        store.attach(Snapshot.open(path));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.clear();
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void seatsAreSoldBeforeTheTicketsAreDecoded() {
+        Bus journey = new Bus(bus.getCode(), 46, Location.intern(FROM), Location.intern(TO));
+        journey.setMovementDate(bus.getMovementDate());
+
+        assertEquals(TICKET_COUNT, store.size());
+        assertTrue(store.getOccupancy(journey).isSoldLocally(TICKET_COUNT));
+        assertFalse(store.add(ticket(journey, "new", 1)));
+        assertFalse(store.add(ticket(journey, "1", 46)));
+        assertTrue(store.add(ticket(journey, "new", 46)));
+        assertEquals(TICKET_COUNT + 1, store.size());
+    }
+
+    @Test
+    public void ticketsAreDecodedOnAccess() {
+        Ticket ticket = store.get("5");
+        assertNotNull(ticket);
+        assertSame(ticket, store.get("5"));
+        assertEquals(5, ticket.getSeatNumber());
+        assertEquals(TICKET_COUNT, ticket.getBus().getPassengers().size());
+
+        assertSame(ticket, store.remove(ticket));
+        assertNull(store.get("5"));
+        assertFalse(store.getOccupancy(ticket.getBus()).isSoldLocally(5));
+        assertEquals(TICKET_COUNT - 1, store.size());
+    }
+
+    @Test
+    public void decodedTicketsKeepTheOrderOfTheSnapshot() {
+        store.get("7");
+        Ticket removed = store.get("3");
+        store.remove(removed);
+
+        int decodedCount = 0;
+        for (ArrayList<Ticket> decoded; !(decoded = store.decodeSnapshot(4)).isEmpty(); ) {
+            assertFalse(decoded.contains(removed));
+            decodedCount += decoded.size();
+        }
+        assertEquals(TICKET_COUNT - 1, decodedCount);
+
+        ArrayList<Ticket> tickets = store.toList();
+        assertEquals(TICKET_COUNT - 1, tickets.size());
+        assertEquals("1", tickets.get(0).getId());
+        assertEquals("7", tickets.get(5).getId());
+    }
+
+    @Test
+    public void snapshotIsReleasedBeforeItIsReplaced() throws IOException {
+        Snapshot.write(store.toList(), path);
+
+        Snapshot snapshot = Snapshot.open(path);
+        assertNotNull(snapshot);
+        assertEquals(TICKET_COUNT, snapshot.getTicketCount());
+        snapshot.close();
+    }
+
+    private static Ticket ticket(Bus bus, String id, int seat) {
+        Ticket ticket = new Ticket(id);
+        ticket.setBus(bus);
+        ticket.setSeatNumber(seat);
+        return ticket;
+    }
+}
@@ -0,0 +1,150 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress test of the concurrent sales of the same seats, through the store, the holds and the restores, which must
+ * never sell a seat twice.
+ */
+public class TicketStoreConcurrencyTest {
+    private static final int THREAD_COUNT = 16, ROUND_COUNT = 50, SEAT_COUNT = 46, ATTEMPTED_SEAT_COUNT = 40;
+    private static final Location FROM = new Location("İSTANBUL (OTOGAR)", "100"), TO = new Location("ANKARA (OTOGAR)", "101");
+
+    private ExecutorService executor;
+    private TicketStore store;
+    private SeatHoldService holds;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        store = new TicketStore();
+        holds = new SeatHoldService(store, 60000, null);
+    }
+
+    @After
+    public void tearDown() {
+        holds.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void everySeatIsSoldOnce() throws Exception {
+        for (int round = 0; round < ROUND_COUNT; round++) {
+            Bus bus = bus(round);
+            AtomicIntegerArray winners = new AtomicIntegerArray(SEAT_COUNT + 1);
+            AtomicInteger ticketWinners = new AtomicInteger();
+
+            race(thread -> {
+                // Every thread tries the seats in an order of its own, by one of the ways a seat gets sold.
+                for (int seat : shuffledSeats(thread)) {
+                    boolean isWon;
+                    switch ((thread + seat) % 3) {
+                        case 0:
+                            isWon = store.add(ticket(bus, seat, thread));
+                            if (isWon) ticketWinners.incrementAndGet();
+                            break;
+                        case 1:
+                            SeatHold hold = holds.tryHold(bus, seat);
+                            isWon = hold != null && store.add(ticket(bus, seat, thread), hold);
+                            if (isWon) ticketWinners.incrementAndGet();
+                            break;
+                        default:
+                            isWon = store.getOccupancy(bus).markSold(seat);
+                            break;
+                    }
+
+                    if (isWon) winners.incrementAndGet(seat);
+                }
+            });
+
+            SeatOccupancy occupancy = store.getOccupancy(bus);
+            for (int seat = 1; seat <= SEAT_COUNT; seat++) {
+                int expected = seat <= ATTEMPTED_SEAT_COUNT ? 1 : 0;
+                assertEquals("Winners of seat " + seat + " in round " + round, expected, winners.get(seat));
+                assertEquals(seat <= ATTEMPTED_SEAT_COUNT, occupancy.isSoldLocally(seat));
+            }
+
+            assertEquals(SEAT_COUNT - ATTEMPTED_SEAT_COUNT, occupancy.getRemainingSeatNumber());
+            assertEquals(0, occupancy.getHeldCount());
+
+            ArrayList<Ticket> tickets = store.getByJourney(bus);
+            assertEquals(ticketWinners.get(), tickets.size());
+            HashSet<Integer> seats = new HashSet<>();
+            for (Ticket ticket : tickets) assertTrue("Seat sold twice", seats.add(ticket.getSeatNumber()));
+        }
+    }
+
+    @Test
+    public void everyTicketIsCancelledOnce() throws Exception {
+        Bus bus = bus(0);
+        for (int seat = 1; seat <= ATTEMPTED_SEAT_COUNT; seat++) assertTrue(store.add(ticket(bus, seat, 0)));
+        ArrayList<Ticket> tickets = store.getByJourney(bus);
+        AtomicIntegerArray removals = new AtomicIntegerArray(SEAT_COUNT + 1);
+
+        race(thread -> {
+            for (int seat : shuffledSeats(thread)) {
+                Ticket removed = store.remove(tickets.get(seat - 1));
+                if (removed != null) removals.incrementAndGet(removed.getSeatNumber());
+            }
+        });
+
+        for (int seat = 1; seat <= ATTEMPTED_SEAT_COUNT; seat++) assertEquals(1, removals.get(seat));
+        assertEquals(SEAT_COUNT, store.getOccupancy(bus).getRemainingSeatNumber());
+        assertEquals(0, store.size());
+    }
+
+    private void race(Action<Integer> action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREAD_COUNT; thread++) {
+            int index = thread;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                action.call(index);
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<Void> future : futures) future.get(30, TimeUnit.SECONDS);
+    }
+
+    private static List<Integer> shuffledSeats(int seed) {
+        ArrayList<Integer> seats = new ArrayList<>(ATTEMPTED_SEAT_COUNT);
+        for (int seat = 1; seat <= ATTEMPTED_SEAT_COUNT; seat++) seats.add(seat);
+        Collections.shuffle(seats, new Random(seed));
+        return seats;
+    }
+
+    private static Bus bus(int index) {
+        Bus bus = new Bus("34 ST " + (100 + index), SEAT_COUNT, FROM, TO);
+        bus.setMovementDate(new Date(1798761600000L + index * 60L * 60 * 1000));
+        bus.setLandingDate(new Date(bus.getMovementDate().getTime() + 6L * 60 * 60 * 1000));
+        return bus;
+    }
+
+    private static Ticket ticket(Bus bus, int seat, int thread) {
+        Ticket ticket = new Ticket(bus.getCode() + "-" + seat + "-" + thread);
+        ticket.setBus(bus);
+        ticket.setSeatNumber(seat);
+        return ticket;
+    }
+}